@@ -0,0 +1,148 @@
+package sortVisualizer;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Measures the bytes the sorting thread allocates in every step of a sort,
+ * using the allocation counter the JVM keeps for each thread. The totals are
+ * reset whenever a new sort starts, and a step that allocates more than the
+ * budget fails the run so allocation regressions in a sort loop are caught.
+ * Only the thread that steps the sort is measured, the socket workers of the
+ * sample sort are not.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class AllocationTracker implements SortListener {
+	private final ThreadMXBean threads;
+	private final long budget;
+	private final long overhead;
+	private long stepStart;
+	private long steps;
+	private long bytes;
+	private long maxStepBytes;
+	private String failure;
+
+	/**
+	 * Builds a tracker
+	 *
+	 * @param budget the most bytes a single step may allocate, 0 for no limit
+	 * @throws UnsupportedOperationException if this JVM cannot measure the
+	 *                                       allocations of a thread
+	 */
+	public AllocationTracker(long budget) {
+		if (budget < 0)
+			throw new IllegalArgumentException("the budget cannot be negative");
+		if (!isSupported())
+			throw new UnsupportedOperationException("this JVM cannot measure the allocations of a thread");
+		threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		threads.setThreadAllocatedMemoryEnabled(true);
+		this.budget = budget;
+		// whatever reading the counter allocates itself is not the sort's
+		long least = Long.MAX_VALUE;
+		for (int i = 0; i < 16; i++) {
+			long start = threads.getCurrentThreadAllocatedBytes();
+			least = Math.min(least, threads.getCurrentThreadAllocatedBytes() - start);
+		}
+		overhead = least;
+	}
+
+	/**
+	 * Returns whether this JVM can measure the allocations of a thread
+	 *
+	 * @return true if trackers can be built
+	 */
+	public static boolean isSupported() {
+		return ManagementFactory.getThreadMXBean() instanceof ThreadMXBean bean
+				&& bean.isThreadAllocatedMemorySupported();
+	}
+
+	/**
+	 * Called by the sorting thread right before a step
+	 */
+	public void beginStep() {
+		stepStart = threads.getCurrentThreadAllocatedBytes();
+	}
+
+	/**
+	 * Called by the sorting thread right after a step, on the same thread as
+	 * beginStep
+	 *
+	 * @param algorithm the name of the sort, for the failure message
+	 * @return false if the step went over the budget
+	 */
+	public boolean endStep(String algorithm) {
+		long allocated = Math.max(0, threads.getCurrentThreadAllocatedBytes() - stepStart - overhead);
+		steps++;
+		bytes += allocated;
+		maxStepBytes = Math.max(maxStepBytes, allocated);
+		if (budget > 0 && allocated > budget) {
+			failure = String.format("%s step %d allocated %d bytes, over the budget of %d", algorithm, steps,
+					allocated, budget);
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public void sortStarted() {
+		reset();
+	}
+
+	/**
+	 * Clears the totals and any failure
+	 */
+	public void reset() {
+		steps = 0;
+		bytes = 0;
+		maxStepBytes = 0;
+		failure = null;
+	}
+
+	/**
+	 * Returns the steps measured since the current sort started
+	 *
+	 * @return the number of steps
+	 */
+	public long getSteps() {
+		return steps;
+	}
+
+	/**
+	 * Returns the bytes allocated by every step since the current sort started
+	 *
+	 * @return the bytes allocated in this run
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Returns the most bytes a single step of the current sort allocated
+	 *
+	 * @return the largest step allocation
+	 */
+	public long getMaxStepBytes() {
+		return maxStepBytes;
+	}
+
+	/**
+	 * Returns the most bytes a single step may allocate
+	 *
+	 * @return the budget, 0 for no limit
+	 */
+	public long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Returns why the current run failed
+	 *
+	 * @return the step that went over the budget, or null if none has
+	 */
+	public String getFailure() {
+		return failure;
+	}
+}
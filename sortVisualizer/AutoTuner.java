@@ -0,0 +1,247 @@
+package sortVisualizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import sortVisualizer.TuningProfile.GapSequence;
+
+/**
+ * Finds the hybrid parameters of the sorts that are fastest on this machine.
+ * The sorts are timed on plain int arrays, since the rectangles of a DrawPanel
+ * are far too slow to show the effect of a cutoff, over several sizes and
+ * distributions. Each parameter is tuned in turn with the ones tuned before it
+ * fixed, and a candidate's score is its time relative to the fastest candidate
+ * summed over every input, so no single size dominates.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class AutoTuner {
+	public static final int[] SIZES = { 1_000, 10_000, 100_000 };
+	public static final int[] CUTOFFS = { 0, 4, 8, 12, 16, 24, 32, 48, 64 };
+	public static final int[] SAMPLES = { 1, 3, 5, 7, 9 };
+	private static final int RUNS = 5;
+	private final List<int[]> inputs;
+	private final StringBuilder report;
+
+	/**
+	 * Builds the inputs: random, nearly sorted, few unique and descending keys at
+	 * every size
+	 */
+	public AutoTuner() {
+		Random random = new Random(42);
+		inputs = new ArrayList<>();
+		report = new StringBuilder();
+		for (int size : SIZES) {
+			inputs.add(random.ints(size).toArray());
+			int[] nearly = new int[size];
+			for (int i = 0; i < size; i++)
+				nearly[i] = i;
+			for (int i = 0; i < size / 100; i++) {
+				int a = random.nextInt(size);
+				int b = random.nextInt(size);
+				int temp = nearly[a];
+				nearly[a] = nearly[b];
+				nearly[b] = temp;
+			}
+			inputs.add(nearly);
+			// ten copies of every key, Lomuto partitioning is quadratic on fewer
+			inputs.add(random.ints(size, 0, size / 10).toArray());
+			int[] descending = new int[size];
+			for (int i = 0; i < size; i++)
+				descending[i] = size - i;
+			inputs.add(descending);
+		}
+	}
+
+	/**
+	 * Tunes every parameter
+	 *
+	 * @return the fastest profile
+	 */
+	public TuningProfile tune() {
+		report.setLength(0);
+		int quickCutoff = CUTOFFS[best("QuickSort cutoff", CUTOFFS.length, i -> a -> quickSort(a, CUTOFFS[i], 1))];
+		int pivotSample = SAMPLES[best("pivot sample", SAMPLES.length,
+				i -> a -> quickSort(a, quickCutoff, SAMPLES[i]))];
+		int mergeCutoff = CUTOFFS[best("MergeSort cutoff", CUTOFFS.length, i -> a -> mergeSort(a, CUTOFFS[i]))];
+		GapSequence[] sequences = GapSequence.values();
+		GapSequence shellGaps = sequences[best("ShellSort gaps", sequences.length,
+				i -> a -> shellSort(a, sequences[i]))];
+		return new TuningProfile(quickCutoff, mergeCutoff, shellGaps, pivotSample);
+	}
+
+	/**
+	 * Returns the score of every candidate of the last tuning, one line per
+	 * parameter
+	 *
+	 * @return the report
+	 */
+	public String getReport() {
+		return report.toString();
+	}
+
+	/**
+	 * A sort of an int array with some parameters fixed
+	 */
+	private interface Kernel {
+		void sort(int[] a);
+	}
+
+	/**
+	 * Times every candidate on every input and returns the index of the one with
+	 * the lowest score
+	 *
+	 * @param name       the name of the parameter, for the report
+	 * @param candidates the number of candidates
+	 * @param kernel     the sort with a candidate's parameter
+	 * @return the index of the best candidate
+	 */
+	private int best(String name, int candidates, IntFunction<Kernel> kernel) {
+		double[] scores = new double[candidates];
+		for (int[] input : inputs) {
+			long[] nanos = new long[candidates];
+			for (int c = 0; c < candidates; c++)
+				nanos[c] = time(kernel.apply(c), input);
+			long fastest = Arrays.stream(nanos).min().getAsLong();
+			for (int c = 0; c < candidates; c++)
+				scores[c] += nanos[c] / (double) Math.max(fastest, 1);
+		}
+		int best = 0;
+		report.append(name).append(':');
+		for (int c = 0; c < candidates; c++) {
+			report.append(String.format(" %.2f", scores[c] / inputs.size()));
+			if (scores[c] < scores[best])
+				best = c;
+		}
+		report.append(System.lineSeparator());
+		return best;
+	}
+
+	/**
+	 * Returns the median time of a few runs of a sort on copies of an input,
+	 * after a warm up run
+	 */
+	private static long time(Kernel kernel, int[] input) {
+		long[] nanos = new long[RUNS];
+		for (int run = -1; run < RUNS; run++) {
+			int[] copy = input.clone();
+			long start = System.nanoTime();
+			kernel.sort(copy);
+			if (run >= 0)
+				nanos[run] = System.nanoTime() - start;
+		}
+		Arrays.sort(nanos);
+		return nanos[RUNS / 2];
+	}
+
+	private static void insertionSort(int[] a, int lo, int hi) {
+		for (int i = lo + 1; i <= hi; i++) {
+			int key = a[i];
+			int j = i - 1;
+			for (; j >= lo && a[j] > key; j--)
+				a[j + 1] = a[j];
+			a[j + 1] = key;
+		}
+	}
+
+	private static void swap(int[] a, int i, int j) {
+		int temp = a[i];
+		a[i] = a[j];
+		a[j] = temp;
+	}
+
+	/**
+	 * The same Lomuto partitioning QuickSort as the DrawPanel's, with a median of
+	 * sample pivot and an insertion sort cutoff
+	 */
+	static void quickSort(int[] a, int cutoff, int sample) {
+		Random random = new Random(1);
+		int[] stack = new int[128];
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = a.length - 1;
+		int[] picks = new int[sample];
+		while (top > 0) {
+			int end = stack[--top];
+			int start = stack[--top];
+			if (end - start + 1 <= cutoff) {
+				insertionSort(a, start, end);
+				continue;
+			}
+			if (start >= end)
+				continue;
+			for (int i = 0; i < sample; i++)
+				picks[i] = random.nextInt(start, end + 1);
+			// insertion sort the picks by key and take the middle one
+			for (int i = 1; i < sample; i++)
+				for (int j = i; j > 0 && a[picks[j - 1]] > a[picks[j]]; j--) {
+					int temp = picks[j];
+					picks[j] = picks[j - 1];
+					picks[j - 1] = temp;
+				}
+			swap(a, end, picks[sample / 2]);
+			int firstLarger = start;
+			for (int i = start; i < end; i++)
+				if (a[i] < a[end])
+					swap(a, i, firstLarger++);
+			swap(a, end, firstLarger);
+			// the larger half goes on the stack first so it stays shallow
+			if (firstLarger - start > end - firstLarger) {
+				stack[top++] = start;
+				stack[top++] = firstLarger - 1;
+				stack[top++] = firstLarger + 1;
+				stack[top++] = end;
+			} else {
+				stack[top++] = firstLarger + 1;
+				stack[top++] = end;
+				stack[top++] = start;
+				stack[top++] = firstLarger - 1;
+			}
+		}
+	}
+
+	/**
+	 * A bottom up MergeSort that insertion sorts runs of cutoff elements first
+	 */
+	static void mergeSort(int[] a, int cutoff) {
+		int run = Math.max(1, cutoff);
+		for (int lo = 0; lo < a.length; lo += run)
+			insertionSort(a, lo, Math.min(lo + run, a.length) - 1);
+		int[] mem = new int[a.length];
+		for (int width = run; width < a.length; width *= 2) {
+			for (int lo = 0; lo + width < a.length; lo += 2 * width) {
+				int mid = lo + width;
+				int hi = Math.min(lo + 2 * width, a.length);
+				int i = lo;
+				int j = mid;
+				int k = lo;
+				while (i < mid && j < hi)
+					mem[k++] = a[i] <= a[j] ? a[i++] : a[j++];
+				while (i < mid)
+					mem[k++] = a[i++];
+				while (j < hi)
+					mem[k++] = a[j++];
+				System.arraycopy(mem, lo, a, lo, hi - lo);
+			}
+		}
+	}
+
+	/**
+	 * A ShellSort with the given gap sequence
+	 */
+	static void shellSort(int[] a, GapSequence sequence) {
+		for (int gap : sequence.gaps(a.length)) {
+			for (int i = gap; i < a.length; i++) {
+				int key = a[i];
+				int j = i - gap;
+				for (; j >= 0 && a[j] > key; j -= gap)
+					a[j + gap] = a[j];
+				a[j + gap] = key;
+			}
+		}
+	}
+}
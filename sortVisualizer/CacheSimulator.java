@@ -0,0 +1,197 @@
+package sortVisualizer;
+
+import java.util.Arrays;
+
+/**
+ * Simulates a two level set associative LRU cache that the rectangles of a
+ * DrawPanel are accessed through. Rectangle i is treated as living at address
+ * i * elementBytes, so the simulator reports how the memory access pattern of
+ * a sort would behave on real hardware. Auxiliary buffers and the characters
+ * of string keys get address ranges of their own, their misses count in the
+ * totals but not in the misses of any index.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class CacheSimulator implements SortListener {
+	// auxiliary buffers and string keys are placed far past the rectangles
+	private static final long AUXBASE = 1L << 40;
+	private static final long KEYBASE = 1L << 41;
+	private final int lineSize;
+	private final int elementBytes;
+	private final Level l1;
+	private final Level l2;
+	private int[] misses;
+	private int maxMisses;
+	private long accesses;
+
+	/**
+	 * Builds a cache simulator, all sizes are in bytes
+	 *
+	 * @param lineSize      size of a cache line
+	 * @param associativity number of ways in each set
+	 * @param l1Size        capacity of the first level
+	 * @param l2Size        capacity of the second level
+	 * @param elementBytes  size of one element of the simulated array
+	 */
+	public CacheSimulator(int lineSize, int associativity, int l1Size, int l2Size, int elementBytes) {
+		if (lineSize <= 0 || associativity <= 0 || elementBytes <= 0 || l1Size < lineSize * associativity
+				|| l2Size < lineSize * associativity)
+			throw new IllegalArgumentException("each cache level must hold at least one set");
+		this.lineSize = lineSize;
+		this.elementBytes = elementBytes;
+		l1 = new Level(l1Size / lineSize / associativity, associativity);
+		l2 = new Level(l2Size / lineSize / associativity, associativity);
+		misses = new int[0];
+	}
+
+	@Override
+	public void accessed(int index) {
+		if (index >= misses.length) {
+			int[] grown = new int[Math.max(index + 1, misses.length * 2)];
+			System.arraycopy(misses, 0, grown, 0, misses.length);
+			misses = grown;
+		}
+		if (!lookup((long) index * elementBytes)) {
+			misses[index]++;
+			maxMisses = Math.max(maxMisses, misses[index]);
+		}
+	}
+
+	@Override
+	public void auxAccessed(int index) {
+		lookup(AUXBASE + (long) index * elementBytes);
+	}
+
+	@Override
+	public void keyAccessed(long offset) {
+		lookup(KEYBASE + offset);
+	}
+
+	/**
+	 * Looks up the line of an address in both levels
+	 *
+	 * @param address the byte address
+	 * @return false if the access missed both levels
+	 */
+	private boolean lookup(long address) {
+		accesses++;
+		long line = address / lineSize;
+		return l1.access(line) || l2.access(line);
+	}
+
+	/**
+	 * Clears all statistics and empties both cache levels
+	 */
+	public void reset() {
+		l1.clear();
+		l2.clear();
+		misses = new int[0];
+		maxMisses = 0;
+		accesses = 0;
+	}
+
+	/**
+	 * Returns the total number of accesses
+	 *
+	 * @return the number of accesses
+	 */
+	public long getAccesses() {
+		return accesses;
+	}
+
+	/**
+	 * Returns the fraction of accesses that hit in the first level
+	 *
+	 * @return the L1 hit rate, 0 if there were no accesses
+	 */
+	public double getL1HitRate() {
+		return l1.hits / (double) Math.max(accesses, 1);
+	}
+
+	/**
+	 * Returns the fraction of first level misses that hit in the second level
+	 *
+	 * @return the L2 hit rate, 0 if there were no L2 accesses
+	 */
+	public double getL2HitRate() {
+		return l2.hits / (double) Math.max(l2.hits + l2.misses, 1);
+	}
+
+	/**
+	 * Returns the number of accesses that missed both levels
+	 *
+	 * @return the number of accesses that went to memory
+	 */
+	public long getMemoryAccesses() {
+		return l2.misses;
+	}
+
+	/**
+	 * Returns how many accesses to an index missed both levels
+	 *
+	 * @param index the index of the rectangle
+	 * @return the number of misses for that index
+	 */
+	public int getMisses(int index) {
+		return index < misses.length ? misses[index] : 0;
+	}
+
+	/**
+	 * Returns the highest number of misses of any single index
+	 *
+	 * @return the highest miss count
+	 */
+	public int getMaxMisses() {
+		return maxMisses;
+	}
+
+	/**
+	 * One set associative cache level, each set keeps its tags ordered from most
+	 * to least recently used
+	 */
+	private static class Level {
+		private final long[][] sets;
+		private final int[] used;
+		private long hits;
+		private long misses;
+
+		public Level(int setCount, int associativity) {
+			sets = new long[setCount][associativity];
+			used = new int[setCount];
+		}
+
+		/**
+		 * Looks up a line and makes it the most recently used line of its set,
+		 * evicting the least recently used line on a miss
+		 *
+		 * @param line the line number
+		 * @return true on a hit, otherwise false
+		 */
+		public boolean access(long line) {
+			int set = (int) (line % sets.length);
+			long[] ways = sets[set];
+			int pos = 0;
+			while (pos < used[set] && ways[pos] != line)
+				pos++;
+			boolean hit = pos < used[set];
+			if (hit) {
+				hits++;
+			} else {
+				misses++;
+				if (used[set] < ways.length)
+					used[set]++;
+				pos = used[set] - 1;
+			}
+			System.arraycopy(ways, 0, ways, 1, pos);
+			ways[0] = line;
+			return hit;
+		}
+
+		public void clear() {
+			Arrays.fill(used, 0);
+			hits = 0;
+			misses = 0;
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package sortVisualizer;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+import sortVisualizer.DrawPanel.Task;
+
+/**
+ * Runs a sorting algorithm off screen across geometrically increasing sizes and
+ * fits the measured operation counts and timings against common growth models.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class ComplexityEstimator {
+	public static final int MINSIZE = 32;
+	public static final int MAXSIZE = 2048;
+	private static final int RUNS = 5;
+
+	/**
+	 * The growth models the measurements are fitted against
+	 */
+	public enum Model {
+		LINEAR("n", n -> n), LINEARITHMIC("n log n", n -> n * Math.log(n) / Math.log(2)),
+		POWER_1_5("n^1.5", n -> Math.pow(n, 1.5)), QUADRATIC("n^2", n -> n * n);
+
+		private final String label;
+		private final DoubleUnaryOperator f;
+
+		Model(String label, DoubleUnaryOperator f) {
+			this.label = label;
+			this.f = f;
+		}
+
+		/**
+		 * Evaluates this model (without a constant) at n
+		 *
+		 * @param n the input size
+		 * @return the value of the model at n
+		 */
+		public double apply(double n) {
+			return f.applyAsDouble(n);
+		}
+
+		@Override
+		public String toString() {
+			return label;
+		}
+	}
+
+	/**
+	 * The result of fitting a series of measurements, y ~ constant * model(n) for
+	 * the best model and y ~ powerConstant * n^exponent for the power law fit
+	 */
+	public record Fit(double[] sizes, double[] values, Model model, double constant, double exponent,
+			double powerConstant) {
+
+		/**
+		 * Evaluates the best fitting model at n
+		 *
+		 * @param n the input size
+		 * @return the fitted value at n
+		 */
+		public double fitted(double n) {
+			return constant * model.apply(n);
+		}
+	}
+
+	private final DrawPanel plane;
+
+	public ComplexityEstimator() {
+		plane = DrawPanel.offScreen(MAXSIZE);
+	}
+
+	/**
+	 * Runs the given sort on permuted lists of sizes MINSIZE, 2*MINSIZE, ...,
+	 * MAXSIZE and fits the operation counts (comparisons + writes) and the
+	 * running times in nanoseconds. Every size is sorted once untimed first, so
+	 * the small sizes are not timed before the sort is compiled, and then
+	 * measured as the median of a few runs.
+	 *
+	 * @param sort the task that selects the sort to measure
+	 * @return the operation count fit at index 0 and the timing fit at index 1
+	 */
+	public Fit[] estimate(Task sort) {
+		int count = Integer.numberOfTrailingZeros(MAXSIZE / MINSIZE) + 1;
+		double[] sizes = new double[count];
+		double[] ops = new double[count];
+		double[] nanos = new double[count];
+		for (int i = 0; i < count; i++)
+			run(sort, MINSIZE << i);
+		for (int i = 0; i < count; i++) {
+			sizes[i] = MINSIZE << i;
+			long[] counts = new long[RUNS];
+			long[] times = new long[RUNS];
+			for (int run = 0; run < RUNS; run++) {
+				times[run] = run(sort, MINSIZE << i);
+				counts[run] = plane.getComparisons() + plane.getWrites();
+			}
+			Arrays.sort(counts);
+			Arrays.sort(times);
+			ops[i] = counts[RUNS / 2];
+			nanos[i] = times[RUNS / 2];
+		}
+		return new Fit[] { fit(sizes, ops), fit(sizes, nanos) };
+	}
+
+	/**
+	 * Sorts a fresh permutation of a size
+	 *
+	 * @param sort the task that selects the sort
+	 * @param size the number of rectangles
+	 * @return the nanoseconds the sort took
+	 */
+	private long run(Task sort, int size) {
+		plane.setSize(size);
+		plane.performTask(Task.PERMUTE);
+		plane.resetCounts();
+		plane.performTask(sort);
+		plane.performTask(Task.TOGGLEPAUSE);
+		long start = System.nanoTime();
+		plane.sort();
+		long nanos = System.nanoTime() - start;
+		plane.killSort();
+		return nanos;
+	}
+
+	/**
+	 * Fits y ~ c * model(n) for each model by least squares on the relative error
+	 * and keeps the best one, and fits y ~ a * n^b by linear regression in log-log
+	 * space
+	 *
+	 * @param sizes  the input sizes
+	 * @param values the measurement for each size
+	 * @return the fit
+	 */
+	public static Fit fit(double[] sizes, double[] values) {
+		Model best = null;
+		double bestConstant = 0;
+		double bestError = Double.MAX_VALUE;
+		for (Model model : Model.values()) {
+			// minimizing sum(((y - c*f)/y)^2) gives c = sum(f/y) / sum((f/y)^2)
+			double num = 0;
+			double den = 0;
+			for (int i = 0; i < sizes.length; i++) {
+				double r = model.apply(sizes[i]) / Math.max(values[i], 1);
+				num += r;
+				den += r * r;
+			}
+			double c = num / den;
+			double error = 0;
+			for (int i = 0; i < sizes.length; i++) {
+				double e = 1 - c * model.apply(sizes[i]) / Math.max(values[i], 1);
+				error += e * e;
+			}
+			if (error < bestError) {
+				bestError = error;
+				best = model;
+				bestConstant = c;
+			}
+		}
+		double meanX = 0;
+		double meanY = 0;
+		for (int i = 0; i < sizes.length; i++) {
+			meanX += Math.log(sizes[i]);
+			meanY += Math.log(Math.max(values[i], 1));
+		}
+		meanX /= sizes.length;
+		meanY /= sizes.length;
+		double sxy = 0;
+		double sxx = 0;
+		for (int i = 0; i < sizes.length; i++) {
+			double dx = Math.log(sizes[i]) - meanX;
+			sxy += dx * (Math.log(Math.max(values[i], 1)) - meanY);
+			sxx += dx * dx;
+		}
+		double exponent = sxy / sxx;
+		return new Fit(sizes, values, best, bestConstant, exponent, Math.exp(meanY - exponent * meanX));
+	}
+}
@@ -0,0 +1,126 @@
+package sortVisualizer;
+
+/**
+ * Prices the comparisons and writes of a sort. The weights turn the operation
+ * counts of a DrawPanel into one weighted cost, and a comparison can be made
+ * really slow by spinning for a while and a write really expensive by copying
+ * a payload, so the running times follow the weights too.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class CostModel {
+	/** every operation costs 1 and nothing is slowed down */
+	public static final CostModel UNIT = new CostModel(1, 1, 0, 0);
+	private final double compareWeight;
+	private final double writeWeight;
+	private final long compareNanos;
+	private final byte[] payload;
+	private final byte[] record;
+
+	/**
+	 * Builds a cost model
+	 *
+	 * @param compareWeight the cost of one comparison
+	 * @param writeWeight   the cost of one write
+	 * @param compareNanos  how long every comparison spins, 0 for none
+	 * @param payloadBytes  the bytes copied by every write, 0 for none
+	 */
+	public CostModel(double compareWeight, double writeWeight, long compareNanos, int payloadBytes) {
+		if (compareWeight < 0 || writeWeight < 0 || compareNanos < 0 || payloadBytes < 0)
+			throw new IllegalArgumentException("costs cannot be negative");
+		this.compareWeight = compareWeight;
+		this.writeWeight = writeWeight;
+		this.compareNanos = compareNanos;
+		payload = new byte[payloadBytes];
+		record = new byte[payloadBytes];
+	}
+
+	/**
+	 * Called for every comparison, spins for compareNanos
+	 */
+	public void compared() {
+		compared(1);
+	}
+
+	/**
+	 * Called for comparisons counted together, such as the ones inside a stream
+	 * index, spins for compareNanos each
+	 *
+	 * @param count the number of comparisons
+	 */
+	public void compared(long count) {
+		if (compareNanos == 0 || count <= 0)
+			return;
+		long end = System.nanoTime() + compareNanos * count;
+		while (System.nanoTime() < end)
+			Thread.onSpinWait();
+	}
+
+	/**
+	 * Called for every write, copies the payload
+	 */
+	public void written() {
+		if (payload.length > 0)
+			System.arraycopy(payload, 0, record, 0, payload.length);
+	}
+
+	/**
+	 * Called for writes counted together, such as the moves inside a stream
+	 * index, copies the payload once each
+	 *
+	 * @param count the number of writes
+	 */
+	public void written(long count) {
+		if (payload.length > 0)
+			for (long i = 0; i < count; i++)
+				System.arraycopy(payload, 0, record, 0, payload.length);
+	}
+
+	/**
+	 * Returns the weighted cost of a number of comparisons and writes
+	 *
+	 * @param comparisons the comparisons
+	 * @param writes      the writes
+	 * @return the weighted cost
+	 */
+	public double cost(long comparisons, long writes) {
+		return compareWeight * comparisons + writeWeight * writes;
+	}
+
+	/**
+	 * Returns the cost of one comparison
+	 *
+	 * @return the comparison weight
+	 */
+	public double getCompareWeight() {
+		return compareWeight;
+	}
+
+	/**
+	 * Returns the cost of one write
+	 *
+	 * @return the write weight
+	 */
+	public double getWriteWeight() {
+		return writeWeight;
+	}
+
+	/**
+	 * Returns how long every comparison spins
+	 *
+	 * @return the nanoseconds per comparison
+	 */
+	public long getCompareNanos() {
+		return compareNanos;
+	}
+
+	/**
+	 * Returns the bytes copied by every write
+	 *
+	 * @return the payload size
+	 */
+	public int getPayloadBytes() {
+		return payload.length;
+	}
+}
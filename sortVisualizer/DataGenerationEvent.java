@@ -0,0 +1,25 @@
+package sortVisualizer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for building, reordering or loading the list of rectangles
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+@Name("sortVisualizer.DataGeneration")
+@Label("Data Generation")
+@Category("Sort Visualizer")
+@StackTrace(false)
+public class DataGenerationEvent extends Event {
+	@Label("Kind")
+	String kind;
+
+	@Label("Size")
+	int size;
+}
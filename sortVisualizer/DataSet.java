@@ -0,0 +1,309 @@
+package sortVisualizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Real keys for the DrawPanel to sort, loaded from a file. Binary files of
+ * big endian longs or doubles are memory mapped in 1 GB chunks and read in
+ * place, up to Integer.MAX_VALUE records, CSV columns are parsed line by line
+ * into an array and text files are read as one string key per line.
+ * Rectangles refer to their key by record number, so sorting never copies the
+ * keys.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class DataSet {
+	private static final int CHUNKSHIFT = 27; // 2^27 records of 8 bytes per mapped chunk
+	private static final int CHUNKMASK = (1 << CHUNKSHIFT) - 1;
+	private final LongBuffer[] longs;
+	private final DoubleBuffer[] doubles;
+	private final double[] values;
+	private final String[] strings;
+	private final int size;
+	private final long totalRecords;
+	private final long[] keyOffsets; // where every string key starts, 2 bytes per character
+	private long charAccesses;
+	private LongConsumer keyListener;
+
+	private DataSet(LongBuffer[] longs, DoubleBuffer[] doubles, double[] values, String[] strings, int size,
+			long totalRecords) {
+		this.longs = longs;
+		this.doubles = doubles;
+		this.values = values;
+		this.strings = strings;
+		this.size = size;
+		this.totalRecords = totalRecords;
+		keyOffsets = strings == null ? null : new long[strings.length];
+		for (int i = 1; keyOffsets != null && i < keyOffsets.length; i++)
+			keyOffsets[i] = keyOffsets[i - 1] + 2L * strings[i - 1].length();
+	}
+
+	/**
+	 * Memory maps a binary file of big endian longs
+	 *
+	 * @param file the file to map
+	 * @return the data set
+	 * @throws IOException if the file cannot be mapped
+	 */
+	public static DataSet mapLongs(Path file) throws IOException {
+		MappedByteBuffer[] chunks = map(file);
+		LongBuffer[] longs = new LongBuffer[chunks.length];
+		for (int i = 0; i < chunks.length; i++)
+			longs[i] = chunks[i].asLongBuffer();
+		return new DataSet(longs, null, null, null, records(chunks), Files.size(file) / Long.BYTES);
+	}
+
+	/**
+	 * Memory maps a binary file of big endian doubles
+	 *
+	 * @param file the file to map
+	 * @return the data set
+	 * @throws IOException if the file cannot be mapped
+	 */
+	public static DataSet mapDoubles(Path file) throws IOException {
+		MappedByteBuffer[] chunks = map(file);
+		DoubleBuffer[] doubles = new DoubleBuffer[chunks.length];
+		for (int i = 0; i < chunks.length; i++)
+			doubles[i] = chunks[i].asDoubleBuffer();
+		return new DataSet(null, doubles, null, null, records(chunks), Files.size(file) / Double.BYTES);
+	}
+
+	/**
+	 * Maps the whole records of a file in chunks of 2^CHUNKSHIFT records, up to
+	 * Integer.MAX_VALUE records. The mappings stay valid after the channel is
+	 * closed.
+	 *
+	 * @param file the file to map
+	 * @return the mapped chunks
+	 * @throws IOException if the file cannot be mapped
+	 */
+	private static MappedByteBuffer[] map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long records = Math.min(channel.size() / Long.BYTES, Integer.MAX_VALUE);
+			MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((records + CHUNKMASK) >>> CHUNKSHIFT)];
+			for (int i = 0; i < chunks.length; i++) {
+				long first = (long) i << CHUNKSHIFT;
+				long length = Math.min(records - first, 1L << CHUNKSHIFT) * Long.BYTES;
+				chunks[i] = channel.map(MapMode.READ_ONLY, first * Long.BYTES, length);
+			}
+			return chunks;
+		}
+	}
+
+	/**
+	 * Returns the number of records in mapped chunks
+	 */
+	private static int records(MappedByteBuffer[] chunks) {
+		long bytes = 0;
+		for (MappedByteBuffer chunk : chunks)
+			bytes += chunk.capacity();
+		return (int) (bytes / Long.BYTES);
+	}
+
+	/**
+	 * Reads one column of a comma separated file. Lines whose column is missing or
+	 * is not a number (such as a header) are skipped.
+	 *
+	 * @param file   the CSV file
+	 * @param column the zero based column to read
+	 * @return the data set
+	 * @throws IOException if the file cannot be read
+	 */
+	public static DataSet csvColumn(Path file, int column) throws IOException {
+		double[] values = new double[1024];
+		int size = 0;
+		try (BufferedReader reader = Files.newBufferedReader(file)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split(",", column + 2);
+				if (fields.length <= column)
+					continue;
+				try {
+					double value = Double.parseDouble(fields[column].strip());
+					if (size == values.length)
+						values = Arrays.copyOf(values, size * 2);
+					values[size++] = value;
+				} catch (NumberFormatException e) {
+					// not a number, skip the line
+				}
+			}
+		}
+		return new DataSet(null, null, values, null, size, size);
+	}
+
+	/**
+	 * Reads every line of a text file as a string key. The value of a line, used
+	 * to scale the rectangles, is its rank among the lines.
+	 *
+	 * @param file the text file
+	 * @return the data set
+	 * @throws IOException if the file cannot be read
+	 */
+	public static DataSet textLines(Path file) throws IOException {
+		return strings(Files.readAllLines(file).toArray(new String[0]));
+	}
+
+	/**
+	 * Builds a data set of string keys
+	 *
+	 * @param strings the keys
+	 * @return the data set
+	 */
+	public static DataSet strings(String[] strings) {
+		Integer[] order = new Integer[strings.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, (a, b) -> strings[a].compareTo(strings[b]));
+		double[] ranks = new double[strings.length];
+		for (int i = 1; i < order.length; i++)
+			ranks[order[i]] = strings[order[i]].equals(strings[order[i - 1]]) ? ranks[order[i - 1]] : i;
+		return new DataSet(null, null, ranks, strings, strings.length, strings.length);
+	}
+
+	/**
+	 * Returns the number of records
+	 *
+	 * @return the number of records
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of whole records in the file, larger than size if the
+	 * file holds more records than can be addressed
+	 *
+	 * @return the number of records in the file
+	 */
+	public long totalRecords() {
+		return totalRecords;
+	}
+
+	/**
+	 * Returns the key of a record as a double, used to scale the rectangles
+	 *
+	 * @param record the record number
+	 * @return the key of that record
+	 */
+	public double value(int record) {
+		if (longs != null)
+			return longs[record >>> CHUNKSHIFT].get(record & CHUNKMASK);
+		if (doubles != null)
+			return doubles[record >>> CHUNKSHIFT].get(record & CHUNKMASK);
+		return values[record];
+	}
+
+	/**
+	 * Returns the key of a record as a long that orders like compare, so the key
+	 * can be copied somewhere else. Doubles are mapped to their bits with the
+	 * bits of negative doubles flipped.
+	 *
+	 * @param record the record number
+	 * @return the key as a long
+	 * @throws UnsupportedOperationException if the keys are strings
+	 */
+	public long sortKey(int record) {
+		if (strings != null)
+			throw new UnsupportedOperationException("string keys cannot be ordered as longs");
+		if (longs != null)
+			return longs[record >>> CHUNKSHIFT].get(record & CHUNKMASK);
+		long bits = Double.doubleToLongBits(value(record));
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+
+	/**
+	 * Compares the keys of two records, longs are compared exactly
+	 *
+	 * @param a first record number
+	 * @param b second record number
+	 * @return number<0 if a's key is smaller, 0 if equal or number>0 if larger
+	 */
+	public int compare(int a, int b) {
+		if (strings != null) {
+			for (int d = 0;; d++) {
+				int ca = charAt(a, d);
+				int cb = charAt(b, d);
+				if (ca != cb || ca == -1)
+					return ca - cb;
+			}
+		}
+		if (longs != null)
+			return Long.compare(longs[a >>> CHUNKSHIFT].get(a & CHUNKMASK), longs[b >>> CHUNKSHIFT].get(b & CHUNKMASK));
+		return Double.compare(value(a), value(b));
+	}
+
+	/**
+	 * Returns true if the keys are strings
+	 *
+	 * @return true for string keys
+	 */
+	public boolean isText() {
+		return strings != null;
+	}
+
+	/**
+	 * Returns a character of a string key, counting the access
+	 *
+	 * @param record the record number
+	 * @param d      the index of the character
+	 * @return the character, or -1 past the end of the key
+	 */
+	public int charAt(int record, int d) {
+		charAccesses++;
+		String key = strings[record];
+		if (d >= key.length())
+			return -1;
+		// the end of a key is known from its length, no character is read for it
+		if (keyListener != null)
+			keyListener.accept(keyOffsets[record] + 2L * d);
+		return key.charAt(d);
+	}
+
+	/**
+	 * Sets who is told about every character charAt reads, as the byte offset of
+	 * the character with the string keys laid out one after the other
+	 *
+	 * @param keyListener the listener, or null for none
+	 */
+	public void setKeyListener(LongConsumer keyListener) {
+		this.keyListener = keyListener;
+	}
+
+	/**
+	 * Returns the string key of a record
+	 *
+	 * @param record the record number
+	 * @return the key
+	 */
+	public String string(int record) {
+		return strings[record];
+	}
+
+	/**
+	 * Returns the characters of string keys read by compare and charAt
+	 *
+	 * @return the character accesses
+	 */
+	public long getCharAccesses() {
+		return charAccesses;
+	}
+
+	/**
+	 * Resets the character access count to 0
+	 */
+	public void resetCharAccesses() {
+		charAccesses = 0;
+	}
+}
@@ -3,10 +3,23 @@ package sortVisualizer;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Toolkit;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Random;
 import java.util.Stack;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
 
 import javax.swing.JPanel;
 
@@ -18,16 +31,54 @@ import javax.swing.JPanel;
  */
 public class DrawPanel extends JPanel {
 	private static final long serialVersionUID = 1L;
-	private static int delay = 200;
+	private int delay = 200;
 	private ArrayList<Rectangle> rects;
 	private Dimension area;
 	private Graphics g;
 	private boolean paused;
 	private SortingIterator currentSort;
+	private long comparisons;
+	private long writes;
+	private List<SortListener> listeners;
+	private volatile CacheSimulator cache;
+	private volatile AllocationTracker allocations;
+	private Comparator<Rectangle> comparator;
+	private DataSet data;
+	private static final Comparator<Rectangle> BYHEIGHT = (a, b) -> b.getHeight() - a.getHeight();
+	private static final int HEATMAPHEIGHT = 8;
+	public static final int STEPBATCH = 1024; // steps summed up by one SortBatchEvent
+	private boolean offScreen;
+	private boolean descendingKeys; // true if the loaded data sorts descending
+	private long sleptNanos;
+	private long pacedNanos;
+	private boolean lastWasWrite;
+	private int lastIndex1;
+	private int lastIndex2;
+	private SortBatchEvent batch;
+	private volatile String status = "";
+	private volatile int workers = 4;
+	private volatile int oversampling = 2;
+	private volatile int k = 10;
+	private volatile CostModel costModel = CostModel.UNIT;
+	private volatile TuningProfile tuning = TuningProfile.DEFAULTS;
+	private volatile StreamIndex.Kind streamKind = StreamIndex.Kind.SKIPLIST;
+	private volatile int streamRate = 16;
+	private volatile int streamFanout = 16;
+	private volatile int streamMemtable = 64;
+	private volatile int streamWindow = 1 << 16;
+	private long batchComparisons;
+	private long batchWrites;
+	private long batchSleptNanos;
+	private long batchPacedNanos;
+	private long batchDrawNanos;
+	private long batchRenderNanos;
+	private volatile BooleanSupplier commandsPending = () -> false;
 
 	public DrawPanel() {
 		super();
 		rects = new ArrayList<>();
+		listeners = new CopyOnWriteArrayList<>();
+		comparator = BYHEIGHT;
 		paused = true;
 		currentSort = null;
 	}
@@ -42,14 +93,109 @@ public class DrawPanel extends JPanel {
 		this.setSize(area);
 	}
 
+	/**
+	 * Sets up this DrawPanel to draw onto the given graphics context instead of
+	 * the screen. Used to run sorts off screen, where the area can be much larger
+	 * than the panel so that every rectangle gets a distinct height.
+	 * 
+	 * @param g    graphics context to draw onto
+	 * @param area the area the rectangles are laid out in
+	 */
+	public void setGraphics(Graphics g, Dimension area) {
+		this.g = g;
+		this.area = area;
+	}
+
+	/**
+	 * Builds a DrawPanel that draws off screen, used to run sorts as fast as
+	 * possible for measurements. The panel has no delay and can hold up to
+	 * maxSize rectangles with distinct heights.
+	 * 
+	 * @param maxSize the largest number of rectangles that will be sorted
+	 * @return the off screen DrawPanel
+	 */
+	public static DrawPanel offScreen(int maxSize) {
+		DrawPanel panel = new DrawPanel();
+		panel.offScreen = true;
+		panel.setDelay(0);
+		BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+		panel.setGraphics(image.createGraphics(), new Dimension(maxSize, maxSize));
+		return panel;
+	}
+
+	/**
+	 * Adds a listener that is told about every operation on the rectangles
+	 * 
+	 * @param listener the listener to add
+	 */
+	public void addSortListener(SortListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes a previously added listener
+	 * 
+	 * @param listener the listener to remove
+	 */
+	public void removeSortListener(SortListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Routes every rectangle access through a simulated cache and draws a heat
+	 * map of the cache misses of each index above the rectangles. It redraws the
+	 * rectangles, so it must be called by the thread that steps the sorts.
+	 * 
+	 * @param cache the simulated cache, or null to stop simulating
+	 */
+	public void setCacheSimulator(CacheSimulator cache) {
+		if (this.cache != null) {
+			removeSortListener(this.cache);
+			g.clearRect(0, 0, area.width, HEATMAPHEIGHT);
+			for (Rectangle curr : rects)
+				curr.draw(g);
+		}
+		this.cache = cache;
+		if (cache != null)
+			addSortListener(cache);
+	}
+
+	/**
+	 * Measures the bytes every step of a sort allocates, failing the run when a
+	 * step goes over the tracker's budget. The tracker must be used by the thread
+	 * that steps the sorts.
+	 * 
+	 * @param allocations the tracker, or null to stop measuring
+	 */
+	public void setAllocationTracker(AllocationTracker allocations) {
+		if (this.allocations != null)
+			removeSortListener(this.allocations);
+		this.allocations = allocations;
+		if (allocations != null)
+			addSortListener(allocations);
+	}
+
+	/**
+	 * Returns the tracker measuring the allocations of every step
+	 * 
+	 * @return the tracker, or null if allocations are not measured
+	 */
+	public AllocationTracker getAllocationTracker() {
+		return allocations;
+	}
+
 	/**
 	 * Sets the size (number of rectangles to sort) to a given amount
 	 * 
 	 * @param size
 	 */
 	public void setSize(int size) {
+		DataGenerationEvent event = new DataGenerationEvent();
+		event.begin();
 		g.clearRect(0, 0, area.width, area.height);
 		rects.clear();
+		data = null;
+		comparator = BYHEIGHT;
 		int incrementX = area.width / size;
 		int incrementY = area.height / size;
 		int currY = area.height - incrementY;
@@ -58,7 +204,181 @@ public class DrawPanel extends JPanel {
 			rects.get(i).draw(g);
 			currY -= incrementY;
 		}
+		for (SortListener listener : listeners)
+			listener.rebuilt();
+		commit(event, "ascending");
+	}
+
+	/**
+	 * Commits a data generation event if it is enabled
+	 * 
+	 * @param event the event, begun before the rectangles were changed
+	 * @param kind  how the rectangles were changed
+	 */
+	private void commit(DataGenerationEvent event, String kind) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.kind = kind;
+			event.size = rects.size();
+			event.commit();
+		}
+	}
+	/**
+	 * Replaces the rectangles with the records of a data set, scaling each key to
+	 * a height. At most one record per pixel of width is loaded, larger data sets
+	 * are sampled at evenly spaced records across the whole set so sorted or
+	 * clustered files keep their distribution.
+	 * 
+	 * @param data       the keys to sort
+	 * @param descending true to sort the keys largest first
+	 * @return the number of records loaded
+	 */
+	public int load(DataSet data, boolean descending) {
+		int size = Math.min(data.size(), area.width);
+		if (size < 2)
+			throw new IllegalArgumentException("a data set needs at least 2 records");
+		DataGenerationEvent event = new DataGenerationEvent();
+		event.begin();
+		g.clearRect(0, 0, area.width, area.height);
+		rects.clear();
+		this.data = data;
+		data.setKeyListener(this::keyAccess);
+		descendingKeys = descending;
+		Comparator<Rectangle> byKey = (a, b) -> data.compare(a.getRecord(), b.getRecord());
+		comparator = descending ? byKey.reversed() : byKey;
+		int[] records = new int[size];
+		double min = Double.MAX_VALUE;
+		double max = -Double.MAX_VALUE;
+		for (int i = 0; i < size; i++) {
+			records[i] = (int) ((long) i * data.size() / size);
+			min = Math.min(min, data.value(records[i]));
+			max = Math.max(max, data.value(records[i]));
+		}
+		double range = max > min ? max - min : 1;
+		int incrementX = area.width / size;
+		for (int i = 0; i < size; i++) {
+			int height = 1 + (int) ((area.height - 1) * (data.value(records[i]) - min) / range);
+			rects.add(new Rectangle(i * incrementX, area.height - height, incrementX, height, Color.BLACK,
+					records[i]));
+			rects.get(i).draw(g);
+		}
+		for (SortListener listener : listeners)
+			listener.rebuilt();
+		commit(event, "load");
+		return size;
+	}
+
+	/**
+	 * Sets the comparator used to order the rectangles
+	 * 
+	 * @param comparator the comparator, or null to order by height
+	 */
+	public void setComparator(Comparator<Rectangle> comparator) {
+		this.comparator = comparator == null ? BYHEIGHT : comparator;
+	}
+
+	/**
+	 * Returns the comparator used to order the rectangles
+	 * 
+	 * @return the comparator
+	 */
+	public Comparator<Rectangle> getComparator() {
+		return comparator;
+	}
+
+	/**
+	 * Returns the rectangle at an index without telling the listeners, used by
+	 * listeners that need to look at the rectangles themselves
+	 * 
+	 * @param index
+	 * @return the rectangle at index
+	 */
+	Rectangle peek(int index) {
+		return rects.get(index);
+	}
+
+	/**
+	 * Returns a line of text about the current sort that does not fit into the
+	 * rectangles, such as the bytes a distributed sort has moved
+	 * 
+	 * @return the status, empty if the sort has nothing to report
+	 */
+	public String getStatus() {
+		return status;
+	}
+
+	/**
+	 * Sets how many workers the sample sort splits the rectangles across and how
+	 * many samples each worker takes per worker
+	 * 
+	 * @param workers      the number of workers
+	 * @param oversampling the number of samples per worker per splitter
+	 */
+	public void setSampleSort(int workers, int oversampling) {
+		this.workers = Math.max(1, workers);
+		this.oversampling = Math.max(1, oversampling);
+	}
+
+	/**
+	 * Sets how many of the smallest rectangles the selection and top-k sorts look
+	 * for
+	 * 
+	 * @param k the number of rectangles, the rank of the rectangle quickselect
+	 *          finds
+	 */
+	public void setK(int k) {
+		this.k = Math.max(1, k);
+	}
+
+	/**
+	 * Returns how many of the smallest rectangles the selection and top-k sorts
+	 * look for
+	 * 
+	 * @return k
+	 */
+	public int getK() {
+		return k;
+	}
+
+	/**
+	 * Sets up the streaming mode, which keeps arriving keys ordered in an index
+	 * instead of sorting the rectangles
+	 * 
+	 * @param kind     the structure the keys are kept in
+	 * @param rate     the number of keys that arrive every step
+	 * @param fanout   the most children of a B-tree node, or the size ratio
+	 *                 between the levels of an LSM tree
+	 * @param memtable the number of keys an LSM tree buffers before writing them
+	 *                 out
+	 * @param window   the number of the newest keys that are always kept, older
+	 *                 ones are dropped a window at a time
+	 */
+	public void setStream(StreamIndex.Kind kind, int rate, int fanout, int memtable, int window) {
+		streamKind = kind;
+		streamRate = Math.max(1, rate);
+		streamFanout = fanout;
+		streamMemtable = memtable;
+		streamWindow = Math.max(1, window);
+	}
+
+	/**
+	 * Returns the height of the area the rectangles are drawn in
+	 * 
+	 * @return the height in pixels
+	 */
+	public int getAreaHeight() {
+		return area.height;
+	}
+
+	/**
+	 * Returns the data set the rectangles were loaded from
+	 * 
+	 * @return the data set, null if the rectangles are generated
+	 */
+	public DataSet getDataSet() {
+		return data;
 	}
+
 	/**
 	 * Returns the current number of rectangles
 	 */
@@ -66,6 +386,91 @@ public class DrawPanel extends JPanel {
 		return rects.size();
 	}
 
+	/**
+	 * Returns the number of comparisons made since the counts were last reset
+	 * 
+	 * @return the number of comparisons
+	 */
+	public long getComparisons() {
+		return comparisons;
+	}
+
+	/**
+	 * Returns the number of rectangle writes made since the counts were last reset,
+	 * a swap counts as two writes
+	 * 
+	 * @return the number of writes
+	 */
+	public long getWrites() {
+		return writes;
+	}
+
+	/**
+	 * Sets the cost model that prices and slows down comparisons and writes
+	 * 
+	 * @param costModel the cost model, or null for unit costs
+	 */
+	public void setCostModel(CostModel costModel) {
+		this.costModel = costModel == null ? CostModel.UNIT : costModel;
+	}
+
+	/**
+	 * Returns the cost model that prices comparisons and writes
+	 * 
+	 * @return the cost model
+	 */
+	public CostModel getCostModel() {
+		return costModel;
+	}
+
+	/**
+	 * Sets the hybrid parameters used by ShellSort, QuickSort and MergeSort, a
+	 * sort that is already running keeps the ones it started with
+	 * 
+	 * @param tuning the profile, or null for the defaults
+	 */
+	public void setTuning(TuningProfile tuning) {
+		this.tuning = tuning == null ? TuningProfile.DEFAULTS : tuning;
+	}
+
+	/**
+	 * Returns the hybrid parameters used by ShellSort, QuickSort and MergeSort
+	 * 
+	 * @return the profile
+	 */
+	public TuningProfile getTuning() {
+		return tuning;
+	}
+
+	/**
+	 * Returns the comparisons and writes since the counts were reset, weighted by
+	 * the cost model
+	 * 
+	 * @return the weighted cost
+	 */
+	public double getWeightedCost() {
+		return costModel.cost(comparisons, writes);
+	}
+
+	/**
+	 * Returns the characters of string keys read since the counts were reset
+	 * 
+	 * @return the character accesses, 0 unless text data is loaded
+	 */
+	public long getCharAccesses() {
+		return data == null ? 0 : data.getCharAccesses();
+	}
+
+	/**
+	 * Resets the comparison, write and character access counts to zero
+	 */
+	public void resetCounts() {
+		comparisons = 0;
+		writes = 0;
+		if (data != null)
+			data.resetCharAccesses();
+	}
+
 	/**
 	 * Returns whether or not the sorting is in its paused mode
 	 * 
@@ -75,29 +480,56 @@ public class DrawPanel extends JPanel {
 		return paused;
 	}
 
+
 	/**
-	 * Pauses the program for delay (variable) milliseconds
+	 * Pauses sorting for a set number of milliseconds Recommended to use a multiple
+	 * of the delay variable to make the program more consistent. The pause is cut
+	 * short as soon as commands are pending, so the sorts that pause in the middle
+	 * of a step finish it quickly and let the commands be handled.
+	 * 
+	 * @param millis the number of milliseconds to pause for
 	 */
-	private void sleep() {
-		try {
-			Thread.sleep(delay);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
+	private void sleep(int millis) {
+		sleptNanos += pause(millis);
 	}
 
 	/**
-	 * Pauses sorting for a set number of milliseconds Recommended to use a multiple
-	 * of the delay variable to make the program more consistent.
+	 * Parks the calling thread for a number of milliseconds or until commands are
+	 * pending
 	 * 
 	 * @param millis the number of milliseconds to pause for
+	 * @return the nanoseconds paused
 	 */
-	private void sleep(int millis) {
-		try {
-			Thread.sleep(millis);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
+	private long pause(int millis) {
+		if (millis <= 0)
+			return 0;
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(millis);
+		long left;
+		// posting a command unparks the sorting thread
+		while (!commandsPending.getAsBoolean() && (left = deadline - System.nanoTime()) > 0)
+			LockSupport.parkNanos(this, left);
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Records time the thread stepping the sorts spent waiting for the delay
+	 * between two steps, for the SortBatchEvent
+	 * 
+	 * @param nanos the nanoseconds waited
+	 */
+	public void paced(long nanos) {
+		pacedNanos += nanos;
+	}
+
+	/**
+	 * Sets what tells the pauses inside a step that the thread stepping the sorts
+	 * has commands waiting
+	 * 
+	 * @param commandsPending returns true while commands are waiting
+	 */
+	public void setCommandsPending(BooleanSupplier commandsPending) {
+		this.commandsPending = commandsPending;
 	}
 	/**
 	 * Sets the delay variable to a user-selected value
@@ -119,16 +551,16 @@ public class DrawPanel extends JPanel {
 	 * been completed
 	 * 
 	 * @return true if the sorting completed, false if sorting ended because the
-	 *         program was paused
+	 *         program was paused or the sort went over its allocation budget
 	 */
 	public boolean sort() {
-		while (!paused && currentSort.hasNextStep()) {
-			sleep();
+		while (!paused && currentSort != null && currentSort.hasNextStep()) {
+			paced(pause(delay));
 			if (currentSort == null)
 				return false;
-			currentSort.nextStep();
+			step();
 		}
-		return !paused;
+		return !paused && currentSort != null;
 	}
 
 	/**
@@ -141,6 +573,7 @@ public class DrawPanel extends JPanel {
 		if (currentSort == null)
 			return false;
 		if (!currentSort.hasNextStep()) {
+			currentSort.close();
 			currentSort = null;
 			return false;
 		}
@@ -151,7 +584,11 @@ public class DrawPanel extends JPanel {
 	 * Kills the current sort
 	 */
 	public void killSort() {
+		commitBatch();
+		if (currentSort != null)
+			currentSort.close();
 		currentSort = null;
+		status = "";
 		paused = true;
 	}
 
@@ -163,13 +600,14 @@ public class DrawPanel extends JPanel {
 	 * @param toDo the task to perform
 	 */
 	public void performTask(Task toDo) {
+		SortingIterator previous = currentSort;
 		switch (toDo) {
 		case TOGGLEPAUSE:
 			paused = !paused;
 			break;
 		case NEXTSTEP: {
 			if (currentSort != null)
-				currentSort.nextStep();
+				step();
 			break;
 		}
 		case BUBBLE:
@@ -181,6 +619,9 @@ public class DrawPanel extends JPanel {
 		case BUILDDESCENDING:
 			descending();
 			break;
+		case BUILDSKEWED:
+			skewed();
+			break;
 		case PERMUTE:
 			shuffle();
 			break;
@@ -193,17 +634,222 @@ public class DrawPanel extends JPanel {
 		case QUICK:
 			currentSort = new QuickSort();
 			break;
+		case BRANCHLESSLOMUTO:
+			currentSort = new BranchlessLomutoSort();
+			break;
+		case BLOCKQUICK:
+			currentSort = new BlockQuickSort();
+			break;
 		case SELECTION:
 			currentSort = new SelectionSort();
 			break;
 		case SHELL:
 			currentSort = new ShellSort();
 			break;
+		case BITONIC:
+			currentSort = new NetworkSort(SortingNetworks.bitonic(rects.size()));
+			break;
+		case ODDEVENMERGE:
+			currentSort = new NetworkSort(SortingNetworks.oddEvenMerge(rects.size()));
+			break;
+		case MSDRADIX:
+		case MULTIKEYQUICK:
+			if (data != null && !data.isText())
+				status = "string sorts need text keys or generated rectangles";
+			else
+				currentSort = toDo == Task.MSDRADIX ? new MsdRadixSort() : new MultikeyQuickSort();
+			break;
+		case BINARYINSERTION:
+			currentSort = new BinaryInsertionSort();
+			break;
+		case MERGEINSERTION:
+			currentSort = new MergeInsertionSort();
+			break;
+		case CYCLE:
+			currentSort = new CycleSort();
+			break;
+		case STREAM:
+			// the stream makes up its own keys, which loaded records cannot hold
+			if (data != null || comparator != BYHEIGHT)
+				status = "stream mode needs generated rectangles";
+			else
+				currentSort = new StreamSort();
+			break;
+		case POWER:
+			currentSort = new PowerSort();
+			break;
+		case QUICKSELECT:
+			currentSort = new QuickSelect(false);
+			break;
+		case INTROSELECT:
+			currentSort = new QuickSelect(true);
+			break;
+		case TOPK:
+			currentSort = new HeapTopK();
+			break;
+		case SAMPLESORT:
+			try {
+				currentSort = new SampleSort();
+			} catch (IOException | UnsupportedOperationException e) {
+				status = "sample sort failed to start its workers: " + e.getMessage();
+			}
+			break;
+		}
+		if (currentSort != previous && currentSort != null) {
+			if (previous != null)
+				previous.close();
+			for (SortListener listener : listeners)
+				listener.sortStarted();
+		}
+	}
+
+	/**
+	 * Performs the next step of the current sort and flushes the frame, recording
+	 * JFR events for slow steps, slow frames and every batch of steps. A step that
+	 * goes over the allocation budget ends the sort with the failure as the
+	 * status.
+	 */
+	private void step() {
+		if (batch == null) {
+			batch = new SortBatchEvent();
+			batch.begin();
+			batchComparisons = comparisons;
+			batchWrites = writes;
+			batchSleptNanos = sleptNanos;
+			batchPacedNanos = pacedNanos;
+			batchDrawNanos = Rectangle.getDrawNanos();
+			batchRenderNanos = 0;
+		}
+		SortStepEvent event = new SortStepEvent();
+		long slept = sleptNanos;
+		long drawn = Rectangle.getDrawNanos();
+		AllocationTracker tracker = allocations;
+		event.begin();
+		if (tracker != null)
+			tracker.beginStep();
+		currentSort.nextStep();
+		if (tracker != null && !tracker.endStep(currentSort.getClass().getSimpleName())) {
+			commitBatch();
+			currentSort.close();
+			currentSort = null;
+			status = tracker.getFailure();
+			return;
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.algorithm = currentSort.getClass().getSimpleName();
+			event.operation = lastWasWrite ? "write" : "compare";
+			event.index1 = lastIndex1;
+			event.index2 = lastWasWrite ? -1 : lastIndex2;
+			event.sleepNanos = sleptNanos - slept;
+			event.drawNanos = Rectangle.getDrawNanos() - drawn;
+			event.commit();
+		}
+		RenderEvent render = new RenderEvent();
+		long renderStart = System.nanoTime();
+		render.begin();
+		drawHeatMap();
+		if (!offScreen)
+			Toolkit.getDefaultToolkit().sync();
+		render.end();
+		batchRenderNanos += System.nanoTime() - renderStart;
+		if (render.shouldCommit()) {
+			render.rectangles = rects.size();
+			render.commit();
+		}
+		batch.steps++;
+		if (batch.steps == STEPBATCH || !currentSort.hasNextStep())
+			commitBatch();
+	}
+
+	/**
+	 * Commits the batch of steps since the last batch, if there were any. The
+	 * SortController calls this before it waits for commands, so a batch never
+	 * includes the time the sort sat paused or between single steps.
+	 */
+	public void commitBatch() {
+		if (batch == null)
+			return;
+		batch.end();
+		if (batch.shouldCommit()) {
+			batch.algorithm = currentSort == null ? "" : currentSort.getClass().getSimpleName();
+			batch.comparisons = comparisons - batchComparisons;
+			batch.writes = writes - batchWrites;
+			batch.pacingNanos = pacedNanos - batchPacedNanos;
+			batch.sleepNanos = sleptNanos - batchSleptNanos;
+			batch.drawNanos = Rectangle.getDrawNanos() - batchDrawNanos;
+			batch.renderNanos = batchRenderNanos;
+			batch.commit();
 		}
+		batch = null;
+	}
+
+	/**
+	 * Draws the cache miss count of every index as a strip above the rectangles,
+	 * white for no misses up to red for the index that missed the most
+	 */
+	private void drawHeatMap() {
+		if (cache == null || rects.isEmpty())
+			return;
+		int width = area.width / rects.size();
+		int max = Math.max(cache.getMaxMisses(), 1);
+		for (int i = 0; i < rects.size(); i++) {
+			int shade = 255 - 255 * cache.getMisses(i) / max;
+			g.setColor(new Color(255, shade, shade));
+			g.fillRect(i * width, 0, width, HEATMAPHEIGHT);
+		}
+		g.setColor(Color.BLACK);
 	}
 
 	// **Sorting Methods**
 
+	/**
+	 * Returns the rectangle at an index, telling every listener about the access
+	 * 
+	 * @param index
+	 * @return the rectangle at index
+	 */
+	private Rectangle at(int index) {
+		for (SortListener listener : listeners)
+			listener.accessed(index);
+		return rects.get(index);
+	}
+
+	/**
+	 * Tells every listener about an access to the current sort's auxiliary buffer
+	 * 
+	 * @param index the index in the buffer
+	 */
+	private void auxAccess(int index) {
+		for (SortListener listener : listeners)
+			listener.auxAccessed(index);
+	}
+
+	/**
+	 * Tells every listener about a read of a string key's character
+	 * 
+	 * @param offset the byte offset of the character among all keys
+	 */
+	private void keyAccess(long offset) {
+		for (SortListener listener : listeners)
+			listener.keyAccessed(offset);
+	}
+
+	/**
+	 * Writes a rectangle to an index, telling every listener about the write
+	 * 
+	 * @param index
+	 * @param r     the rectangle to write
+	 */
+	private void set(int index, Rectangle r) {
+		rects.set(index, r);
+		costModel.written();
+		lastWasWrite = true;
+		lastIndex1 = index;
+		for (SortListener listener : listeners)
+			listener.written(index);
+	}
+
 	/**
 	 * Swaps two rectangles
 	 * 
@@ -211,10 +857,11 @@ public class DrawPanel extends JPanel {
 	 * @param index2
 	 */
 	private void swap(int index1, int index2) {
-		Rectangle r1 = rects.get(index1);
-		Rectangle r2 = rects.get(index2);
-		rects.set(index1, r2);
-		rects.set(index2, r1);
+		Rectangle r1 = at(index1);
+		Rectangle r2 = at(index2);
+		set(index1, r2);
+		set(index2, r1);
+		writes += 2;
 		Rectangle.swap(r1, r2);
 		r1.draw(g);
 		r2.draw(g);
@@ -225,19 +872,44 @@ public class DrawPanel extends JPanel {
 	 * Scrambles the positions of the rectangles
 	 */
 	private void shuffle() {
-		Random rng = new Random();
+		shuffle(new Random());
+	}
+
+	/**
+	 * Shuffles the rectangles the same way every time the same seed is used, so
+	 * sorts can be compared on identical permutations
+	 * 
+	 * @param seed the seed of the shuffle
+	 */
+	public void permute(long seed) {
+		shuffle(new Random(seed));
+	}
+
+	/**
+	 * Shuffles the rectangles with the given random number generator
+	 * 
+	 * @param rng the random number generator
+	 */
+	private void shuffle(Random rng) {
+		DataGenerationEvent event = new DataGenerationEvent();
+		event.begin();
 		for (int i = 0; i < rects.size(); i++) {
 			swap(i, rng.nextInt(rects.size()));
 		}
+		commit(event, "permute");
 	}
 
 	/**
 	 * Organizes the rectangles in a descending order
 	 */
 	private void descending() {
+		DataGenerationEvent event = new DataGenerationEvent();
+		event.begin();
 		int size = rects.size();
 		g.clearRect(0, 0, area.width, area.height);
 		rects.clear();
+		data = null;
+		comparator = BYHEIGHT;
 		int incrementX = area.width / size;
 		int incrementY = area.height / size;
 		int currY = incrementY;
@@ -247,6 +919,46 @@ public class DrawPanel extends JPanel {
 			curr.draw(g);
 			currY += incrementY;
 		}
+		for (SortListener listener : listeners)
+			listener.rebuilt();
+		commit(event, "descending");
+	}
+
+	/**
+	 * Builds rectangles in a random order whose heights follow a Zipf
+	 * distribution over the heights of an ascending list: the k-th smallest height
+	 * is picked with a probability proportional to 1/k^2, so the smallest key makes
+	 * up about 60% of the list. Equal keys all land in one bucket of a sample
+	 * sort, so its workers end up with uneven loads.
+	 */
+	private void skewed() {
+		DataGenerationEvent event = new DataGenerationEvent();
+		event.begin();
+		int size = rects.size();
+		g.clearRect(0, 0, area.width, area.height);
+		rects.clear();
+		data = null;
+		comparator = BYHEIGHT;
+		int incrementX = area.width / size;
+		int incrementY = area.height / size;
+		double[] cumulative = new double[size];
+		double total = 0;
+		for (int k = 0; k < size; k++) {
+			total += 1.0 / ((k + 1.0) * (k + 1.0));
+			cumulative[k] = total;
+		}
+		Random rng = new Random();
+		for (int i = 0; i < size; i++) {
+			int rank = Arrays.binarySearch(cumulative, rng.nextDouble() * total);
+			rank = rank < 0 ? -rank - 1 : rank;
+			int height = incrementY * (Math.min(rank, size - 1) + 1);
+			Rectangle curr = new Rectangle(i * incrementX, area.height - height, incrementX, height, Color.BLACK);
+			rects.add(curr);
+			curr.draw(g);
+		}
+		for (SortListener listener : listeners)
+			listener.rebuilt();
+		commit(event, "skewed");
 	}
 
 	/**
@@ -257,33 +969,79 @@ public class DrawPanel extends JPanel {
 	}
 
 	/**
-	 * Compares the heights of two rectangles, functions like a Comparator
+	 * Compares two rectangles with the current comparator (by height unless
+	 * data was loaded), functions like a Comparator
 	 * 
 	 * @param a rectangle one
 	 * @param b rectangle two
-	 * @return number<0 if a.height<b.height, 0 if equal or number>0 if
-	 *         a.height>b.height
+	 * @return number<0 if a<b, 0 if equal or number>0 if a>b
 	 */
 	private int cmp(int a, int b) {
-		return rects.get(b).getHeight() - rects.get(a).getHeight();
+		comparisons++;
+		costModel.compared();
+		lastWasWrite = false;
+		lastIndex1 = a;
+		lastIndex2 = b;
+		for (SortListener listener : listeners)
+			listener.compared(a, b);
+		return comparator.compare(at(a), at(b));
 	}
 
 	/**
-	 * Implements a ShellSort on the rectangles
+	 * Compares a rectangle that is not in the list, such as one held by a cycle
+	 * sort, with the rectangle at an index
+	 * 
+	 * @param held  the rectangle
+	 * @param index the index of the other rectangle
+	 * @return number<0 if held<rectangle, 0 if equal or number>0 if held>rectangle
 	 */
-	private class ShellSort implements SortingIterator {
-		int gapSize;
-		int index;
+	private int cmp(Rectangle held, int index) {
+		comparisons++;
+		costModel.compared();
+		lastWasWrite = false;
+		lastIndex1 = index;
+		lastIndex2 = index;
+		for (SortListener listener : listeners)
+			listener.compared(index, index);
+		return comparator.compare(held, at(index));
+	}
+
+	/**
+	 * Insertion sorts the rectangles between two indexes, inclusive, used by the
+	 * hybrid sorts for ranges below their cutoffs and by the selections for small
+	 * groups
+	 * 
+	 * @param start the first index
+	 * @param end   the last index
+	 */
+	private void insertionSort(int start, int end) {
+		for (int i = start + 1; i <= end; i++)
+			for (int j = i; j > start && cmp(j - 1, j) > 0; j--)
+				swap(j - 1, j);
+	}
+
+	/**
+	 * Implements a ShellSort on the rectangles with the gap sequence of the tuning
+	 * profile
+	 */
+	private class ShellSort implements SortingIterator {
+		private final int[] gaps;
+		private int gapIndex;
+		int gapSize;
+		int index;
 
 		public ShellSort() {
-			gapSize = rects.size() / 2;
+			gaps = tuning.shellGaps().gaps(rects.size());
+			gapIndex = 0;
+			gapSize = gaps[0];
 			index = gapSize;
 		}
 
 		@Override
 		public void nextStep() {
 			if (index >= rects.size()) {
-				gapSize /= 2;
+				gapIndex++;
+				gapSize = gapIndex < gaps.length ? gaps[gapIndex] : 0;
 				for (Rectangle curr : rects)
 					curr.setColor(Color.BLACK, g);
 				index = gapSize;
@@ -366,16 +1124,25 @@ public class DrawPanel extends JPanel {
 	}
 
 	/**
-	 * Implements a QuickSort on the rectangles with a random pivot selection
+	 * Implements a QuickSort on the rectangles with a random pivot selection, or
+	 * the median of a random sample as set by the tuning profile. Ranges no larger
+	 * than the profile's cutoff are insertion sorted in one step. Subclasses
+	 * change how a range is partitioned around the pivot at its end.
 	 */
 	private class QuickSort implements SortingIterator {
+		private final int cutoff;
+		private final int[] sample;
+		private final Random random;
 		private Stack<Pair> stk;
-		private int start;
-		private int end;
-		private int firstIndLarger;
+		int start;
+		int end;
+		int firstIndLarger;
 		int i;
 
 		public QuickSort() {
+			cutoff = tuning.quickCutoff();
+			sample = new int[tuning.pivotSample()];
+			random = new Random();
 			start = -1;
 			end = -1;
 			firstIndLarger = -1;
@@ -395,13 +1162,19 @@ public class DrawPanel extends JPanel {
 					start = -1;
 					return;
 				}
-				firstIndLarger = start;
-				i = start;
-				swap(end, (new Random()).nextInt(start, end + 1));
+				if (end - start + 1 <= cutoff) {
+					insertionSort(start, end);
+					for (int j = start; j <= end; j++)
+						rects.get(j).setColor(Color.GREEN, g);
+					start = -1;
+					return;
+				}
+				swap(end, pivot());
 				rects.get(end).setColor(Color.RED, g);
+				startPartition();
 				return;
 			}
-			if (i == end) {
+			if (partitioned()) {
 				swap(end, firstIndLarger);
 				rects.get(firstIndLarger).setColor(Color.GREEN, g);
 				for (Rectangle curr : rects) {
@@ -415,6 +1188,22 @@ public class DrawPanel extends JPanel {
 				start = -1;
 				return;
 			}
+			partitionStep();
+		}
+
+		/**
+		 * Called once the pivot has been moved to the end of the range
+		 */
+		void startPartition() {
+			firstIndLarger = start;
+			i = start;
+		}
+
+		/**
+		 * Compares the next rectangle of the range with the pivot and moves it
+		 * before firstIndLarger if it is smaller
+		 */
+		void partitionStep() {
 			if (cmp(i, end) < 0) {
 				rects.get(i).setColor(Color.CYAN, g);
 				swap(i, firstIndLarger);
@@ -425,32 +1214,192 @@ public class DrawPanel extends JPanel {
 			i++;
 		}
 
+		/**
+		 * Returns whether the range has been partitioned, with the pivot's final
+		 * index in firstIndLarger
+		 * 
+		 * @return true if the pivot can be put in place
+		 */
+		boolean partitioned() {
+			return i == end;
+		}
+
 		@Override
 		public boolean hasNextStep() {
 			return start != -1 || !stk.isEmpty();
 		}
 
+		/**
+		 * Picks random indexes between start and end and returns the one holding
+		 * the median of their rectangles
+		 * 
+		 * @return the pivot index
+		 */
+		private int pivot() {
+			for (int j = 0; j < sample.length; j++) {
+				sample[j] = random.nextInt(start, end + 1);
+				for (int m = j; m > 0 && cmp(sample[m - 1], sample[m]) > 0; m--) {
+					int temp = sample[m];
+					sample[m] = sample[m - 1];
+					sample[m - 1] = temp;
+				}
+			}
+			return sample[sample.length / 2];
+		}
+
+	}
+
+	/**
+	 * Implements a QuickSort on the rectangles whose Lomuto partition has no data
+	 * dependent branch. Every rectangle is swapped with the first larger one and
+	 * the comparison only decides whether that index moves on, so it writes more
+	 * than QuickSort but a CPU never mispredicts it.
+	 */
+	private class BranchlessLomutoSort extends QuickSort {
+		@Override
+		void partitionStep() {
+			boolean smaller = cmp(i, end) < 0;
+			swap(i, firstIndLarger);
+			rects.get(i).setColor(Color.PINK, g);
+			rects.get(firstIndLarger).setColor(smaller ? Color.CYAN : Color.PINK, g);
+			firstIndLarger += smaller ? 1 : 0;
+			i++;
+		}
+	}
+
+	/**
+	 * Implements a BlockQuicksort (Edelkamp and Weiss) on the rectangles. Each
+	 * step scans a block at either end of the range that has run out of
+	 * misplaced rectangles, storing the offset of every rectangle and only
+	 * counting it when it is on the wrong side, then swaps the misplaced pairs
+	 * the two blocks have found. The comparisons never decide a branch, the
+	 * swaps come from the offset buffers. Misplaced rectangles on the left are
+	 * pink and those on the right cyan.
+	 */
+	private class BlockQuickSort extends QuickSort {
+		private static final int BLOCK = 8;
+		private final int[] offsetsL = new int[BLOCK];
+		private final int[] offsetsR = new int[BLOCK];
+		private int l;
+		private int r;
+		private int startL;
+		private int startR;
+		private int numL;
+		private int numR;
+		private boolean done;
+
+		@Override
+		void startPartition() {
+			l = start;
+			r = end - 1;
+			numL = 0;
+			numR = 0;
+			done = false;
+		}
+
+		@Override
+		void partitionStep() {
+			int size = r - l + 1;
+			int sizeL = BLOCK;
+			int sizeR = BLOCK;
+			boolean rest = size <= 2 * BLOCK;
+			if (rest) {
+				// the last round splits what is left between the blocks
+				if (numL == 0 && numR == 0) {
+					sizeL = size / 2;
+					sizeR = size - sizeL;
+				} else if (numL == 0) {
+					sizeL = size - BLOCK;
+				} else {
+					sizeR = size - BLOCK;
+				}
+			}
+			if (numL == 0) {
+				startL = 0;
+				for (int j = 0; j < sizeL; j++) {
+					offsetsL[numL] = j;
+					numL += cmp(l + j, end) >= 0 ? 1 : 0;
+				}
+				for (int j = 0; j < numL; j++)
+					rects.get(l + offsetsL[j]).setColor(Color.PINK, g);
+			}
+			if (numR == 0) {
+				startR = 0;
+				for (int j = 0; j < sizeR; j++) {
+					offsetsR[numR] = j;
+					numR += cmp(r - j, end) < 0 ? 1 : 0;
+				}
+				for (int j = 0; j < numR; j++)
+					rects.get(r - offsetsR[j]).setColor(Color.CYAN, g);
+			}
+			int num = Math.min(numL, numR);
+			for (int j = 0; j < num; j++) {
+				sleep(delay / 2);
+				swap(l + offsetsL[startL + j], r - offsetsR[startR + j]);
+			}
+			numL -= num;
+			numR -= num;
+			startL += num;
+			startR += num;
+			if (numL == 0)
+				l += sizeL;
+			if (numR == 0)
+				r -= sizeR;
+			if (!rest)
+				return;
+			// at most one block still has misplaced rectangles, move them to its
+			// far end
+			if (numL > 0) {
+				while (numL > 0)
+					swap(l + offsetsL[startL + --numL], r--);
+				l = r + 1;
+			} else {
+				while (numR > 0)
+					swap(r - offsetsR[startR + --numR], l++);
+			}
+			firstIndLarger = l;
+			done = true;
+		}
+
+		@Override
+		boolean partitioned() {
+			return done;
+		}
 	}
 
 	/**
-	 * Implements an Iterative MergeSort on the rectangles
+	 * Implements an Iterative MergeSort on the rectangles. When the tuning profile
+	 * sets a cutoff, runs of that many rectangles are insertion sorted first, one
+	 * run per step, and merged from there.
 	 */
 	private class MergeSort implements SortingIterator {
 		private ArrayDeque<Pair> queue;
 		private Rectangle[] mem;
 		private int count;
+		private final int run;
+		private int unsorted;
 
 		public MergeSort() {
+			run = Math.max(1, tuning.mergeCutoff());
 			queue = new ArrayDeque<>();
-			for (int i = 0; i < rects.size(); i++) {
-				queue.add(new Pair(i, i));
+			for (int i = 0; i < rects.size(); i += run) {
+				queue.add(new Pair(i, Math.min(i + run, rects.size()) - 1));
 			}
 			mem = new Rectangle[rects.size()];
 			count = queue.size();
+			unsorted = run == 1 ? rects.size() : 0;
 		}
 
 		@Override
 		public void nextStep() {
+			if (unsorted < rects.size()) {
+				int end = Math.min(unsorted + run, rects.size()) - 1;
+				insertionSort(unsorted, end);
+				for (int i = unsorted; i <= end; i++)
+					rects.get(i).setColor(queue.size() == 1 ? Color.GREEN : Color.ORANGE, g);
+				unsorted = end + 1;
+				return;
+			}
 			Pair first = queue.remove();
 			Pair second;
 			if (first.end + 1 != queue.peek().start) {
@@ -474,7 +1423,7 @@ public class DrawPanel extends JPanel {
 
 		@Override
 		public boolean hasNextStep() {
-			return queue.size() > 1;
+			return unsorted < rects.size() || queue.size() > 1;
 		}
 
 		/**
@@ -490,6 +1439,7 @@ public class DrawPanel extends JPanel {
 			int e1 = one.end;
 			int e2 = two.end;
 			int ind = 0;
+			// the comparison already read the winner, only the copy into mem is new
 			while (s1 <= e1 && s2 <= e2) {
 				if (cmp(s1, s2) <= 0) {
 					mem[ind] = rects.get(s1);
@@ -498,31 +1448,330 @@ public class DrawPanel extends JPanel {
 					mem[ind] = rects.get(s2);
 					s2++;
 				}
+				auxAccess(ind);
 				ind++;
 			}
 			while (s1 <= e1) {
-				mem[ind] = rects.get(s1);
+				mem[ind] = at(s1);
+				auxAccess(ind);
 				s1++;
 				ind++;
 			}
 			while (s2 <= e2) {
-				mem[ind] = rects.get(s2);
+				mem[ind] = at(s2);
+				auxAccess(ind);
 				s2++;
 				ind++;
 			}
 			int st = Math.min(one.start, two.start);
 			for (int i = 0; i < ind; i++) {
 				sleep((int) (1.5 * delay));
-				Rectangle r1 = rects.get(st);
+				Rectangle r1 = at(st);
 				Rectangle r2 = mem[i];
+				auxAccess(i);
 				r2.setColor(Color.RED, g);
-				rects.set(st, Rectangle.mergeTwo(r2, r1, g));
+				set(st, Rectangle.mergeTwo(r2, r1, g));
+				writes++;
 				st++;
 			}
 			return new Pair(Math.min(one.start, two.start), Math.max(e1, e2));
 		}
 	}
 
+	/**
+	 * Implements an adaptive natural merge sort on the rectangles. Each step
+	 * either finds the next run, reversing it if it is strictly descending and
+	 * extending it to a minimum length with binary insertion, or merges two runs
+	 * following the powersort rule. Merges skip the parts of both runs that are
+	 * already in place and switch to galloping once one run keeps winning.
+	 * Natural runs alternate between blue and cyan, rectangles added by binary
+	 * insertion are orange and rectangles moved by galloping are magenta.
+	 */
+	private class PowerSort implements SortingIterator {
+		private static final int MINGALLOP = 7;
+		private final Stack<Run> stack;
+		private final Rectangle[] mem;
+		private final boolean[] galloped;
+		private final int minRun;
+		private Run current;
+		private Run next;
+		private int pos;
+		private int minGallop;
+		private int runs;
+		private int merges;
+		private int gallopCount;
+
+		public PowerSort() {
+			stack = new Stack<>();
+			mem = new Rectangle[rects.size()];
+			galloped = new boolean[rects.size()];
+			// TimSort keeps runs between 32 and 64 long, which would leave a
+			// single run at the sizes shown here, so this uses 8 to 16
+			int n = rects.size();
+			int r = 0;
+			while (n >= 16) {
+				r |= n & 1;
+				n >>= 1;
+			}
+			minRun = n + r;
+			minGallop = MINGALLOP;
+		}
+
+		@Override
+		public void nextStep() {
+			if (current == null) {
+				current = findRun(Color.BLUE);
+			} else if (next == null && pos < rects.size()) {
+				findNext();
+			} else if (next != null && !stack.isEmpty() && stack.peek().power > next.power) {
+				current = merge(stack.pop(), current);
+			} else if (next != null) {
+				// the power of a run's right boundary is kept with it on the stack
+				stack.push(new Run(current.start, current.end, next.power, current.color));
+				current = next;
+				next = null;
+				if (pos < rects.size())
+					findNext();
+				else
+					current = merge(stack.pop(), current);
+			} else {
+				// every run has been found, merge what is left on the stack
+				current = merge(stack.pop(), current);
+			}
+			if (!hasNextStep())
+				for (Rectangle curr : rects)
+					curr.setColor(Color.GREEN, g);
+			status = String.format("%d runs, %d merges, %d rectangles galloped, min gallop %d", runs, merges,
+					gallopCount, minGallop);
+		}
+
+		@Override
+		public boolean hasNextStep() {
+			return current == null || pos < rects.size() || next != null || !stack.isEmpty();
+		}
+
+		/**
+		 * Finds the run after the current run and the power of the boundary
+		 * between them
+		 */
+		private void findNext() {
+			Run found = findRun(current.color == Color.BLUE ? Color.CYAN : Color.BLUE);
+			next = new Run(found.start, found.end, power(current, found), found.color);
+		}
+
+		/**
+		 * Finds the run starting at pos, reversing it if it is strictly descending
+		 * and extending it to minRun with binary insertion
+		 * 
+		 * @param color the color of the run
+		 * @return the run
+		 */
+		private Run findRun(Color color) {
+			int start = pos;
+			int end = start;
+			if (end + 1 < rects.size()) {
+				end++;
+				if (cmp(end, start) < 0) {
+					while (end + 1 < rects.size() && cmp(end + 1, end) < 0)
+						end++;
+					for (int lo = start, hi = end; lo < hi; lo++, hi--)
+						swap(lo, hi);
+				} else {
+					while (end + 1 < rects.size() && cmp(end + 1, end) >= 0)
+						end++;
+				}
+			}
+			for (int i = start; i <= end; i++)
+				rects.get(i).setColor(color, g);
+			int last = Math.min(start + minRun, rects.size()) - 1;
+			while (end < last) {
+				end++;
+				// insert after every equal rectangle to keep the sort stable
+				int lo = start;
+				int hi = end;
+				while (lo < hi) {
+					int mid = (lo + hi) >>> 1;
+					if (cmp(end, mid) < 0)
+						hi = mid;
+					else
+						lo = mid + 1;
+				}
+				rects.get(end).setColor(Color.ORANGE, g);
+				for (int i = end; i > lo; i--)
+					swap(i, i - 1);
+			}
+			pos = end + 1;
+			runs++;
+			return new Run(start, end, 0, color);
+		}
+
+		/**
+		 * Returns the powersort power of the boundary between two adjacent runs, the
+		 * depth of the first level in which their midpoints fall into different
+		 * halves of the whole list
+		 */
+		private int power(Run left, Run right) {
+			long n2 = 2L * rects.size();
+			long a = left.start + left.end + 1L; // twice the midpoint
+			long b = right.start + right.end + 1L;
+			int power = 0;
+			while ((a << power) / n2 == (b << power) / n2)
+				power++;
+			return power;
+		}
+
+		/**
+		 * Merges two adjacent runs, keeping the color of the left run
+		 * 
+		 * @return the merged run
+		 */
+		private Run merge(Run left, Run right) {
+			merges++;
+			int s1 = left.start;
+			int e1 = left.end;
+			int e2 = right.end;
+			// rectangles of the left run that are not larger than the right run's
+			// first and rectangles of the right run that are not smaller than the
+			// left run's last are already in place
+			s1 += gallop(e1 + 1, s1, e1, false);
+			e2 = s1 <= e1 ? e1 + gallop(e1, e1 + 1, e2, true) : e1;
+			int i = s1;
+			int j = e1 + 1;
+			int ind = 0;
+			int winsLeft = 0;
+			int winsRight = 0;
+			while (i <= e1 && j <= e2) {
+				// the comparison already read the winner, only the copy into mem is new
+				auxAccess(ind);
+				if (cmp(j, i) < 0) {
+					galloped[ind] = false;
+					mem[ind++] = rects.get(j++);
+					winsRight++;
+					winsLeft = 0;
+				} else {
+					galloped[ind] = false;
+					mem[ind++] = rects.get(i++);
+					winsLeft++;
+					winsRight = 0;
+				}
+				if (winsLeft >= minGallop && i <= e1 && j <= e2) {
+					int count = gallop(j, i, e1, false);
+					for (int c = 0; c < count; c++) {
+						galloped[ind] = true;
+						auxAccess(ind);
+						mem[ind++] = at(i++);
+					}
+					adjustGallop(count);
+					winsLeft = 0;
+				} else if (winsRight >= minGallop && i <= e1 && j <= e2) {
+					int count = gallop(i, j, e2, true);
+					for (int c = 0; c < count; c++) {
+						galloped[ind] = true;
+						auxAccess(ind);
+						mem[ind++] = at(j++);
+					}
+					adjustGallop(count);
+					winsRight = 0;
+				}
+			}
+			while (i <= e1) {
+				galloped[ind] = false;
+				auxAccess(ind);
+				mem[ind++] = at(i++);
+			}
+			while (j <= e2) {
+				galloped[ind] = false;
+				auxAccess(ind);
+				mem[ind++] = at(j++);
+			}
+			for (int k = 0; k < ind; k++) {
+				sleep((int) (1.5 * delay));
+				Rectangle r1 = at(s1 + k);
+				Rectangle r2 = mem[k];
+				auxAccess(k);
+				r2.setColor(galloped[k] ? Color.MAGENTA : Color.RED, g);
+				set(s1 + k, Rectangle.mergeTwo(r2, r1, g));
+				writes++;
+			}
+			for (int k = left.start; k <= right.end; k++)
+				rects.get(k).setColor(left.color, g);
+			// keep neighboring runs apart
+			if (next != null && next.color == left.color) {
+				next = new Run(next.start, next.end, next.power, left.color == Color.BLUE ? Color.CYAN : Color.BLUE);
+				for (int k = next.start; k <= next.end; k++)
+					rects.get(k).setColor(next.color, g);
+			}
+			return new Run(left.start, right.end, 0, left.color);
+		}
+
+		/**
+		 * Gallops through a sorted range to count how many of its rectangles come
+		 * before the rectangle at key: an exponential search followed by a binary
+		 * search
+		 * 
+		 * @param key      the index of the rectangle to look for
+		 * @param from     the first index of the range
+		 * @param to       the last index of the range
+		 * @param strictly true to only count rectangles smaller than the key,
+		 *                 otherwise rectangles equal to it count too
+		 * @return the number of rectangles before the key
+		 */
+		private int gallop(int key, int from, int to, boolean strictly) {
+			int length = to - from + 1;
+			int last = 0;
+			int ofs = 1;
+			while (ofs <= length && before(from + ofs - 1, key, strictly)) {
+				last = ofs;
+				ofs = 2 * ofs + 1;
+			}
+			int lo = last;
+			int hi = Math.min(ofs - 1, length);
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (before(from + mid, key, strictly))
+					lo = mid + 1;
+				else
+					hi = mid;
+			}
+			return lo;
+		}
+
+		private boolean before(int index, int key, boolean strictly) {
+			int c = cmp(index, key);
+			return strictly ? c < 0 : c <= 0;
+		}
+
+		/**
+		 * Makes galloping easier to enter after it paid off and harder after it did
+		 * not, like TimSort
+		 */
+		private void adjustGallop(int count) {
+			gallopCount += count;
+			if (count >= MINGALLOP)
+				minGallop = Math.max(1, minGallop - 1);
+			else
+				minGallop++;
+		}
+	}
+
+	/**
+	 * A run of sorted rectangles, with the powersort power of the boundary to the
+	 * run after it while it is on the stack
+	 */
+	private static class Run {
+		public final int start;
+		public final int end;
+		public final int power;
+		public final Color color;
+
+		public Run(int start, int end, int power, Color color) {
+			this.start = start;
+			this.end = end;
+			this.power = power;
+			this.color = color;
+		}
+	}
+
 	/**
 	 * Class used to keep track of start and end indices in traditionally recursive
 	 * methods. Start/End indices need to be stored in some structure since
@@ -617,9 +1866,995 @@ public class DrawPanel extends JPanel {
 
 	}
 
+	/**
+	 * Implements a sorting network on the rectangles, each step performs one whole
+	 * layer of independent compare-exchanges
+	 */
+	private class NetworkSort implements SortingIterator {
+		private List<int[]> layers;
+		private int layer;
+
+		public NetworkSort(List<int[]> layers) {
+			this.layers = layers;
+			layer = 0;
+		}
+
+		@Override
+		public void nextStep() {
+			int[] pairs = layers.get(layer);
+			for (int i : pairs)
+				rects.get(i).setColor(Color.ORANGE, g);
+			sleep(delay);
+			for (int c = 0; c < pairs.length; c += 2) {
+				if (cmp(pairs[c], pairs[c + 1]) > 0)
+					swap(pairs[c], pairs[c + 1]);
+			}
+			layer++;
+			Color done = layer == layers.size() ? Color.GREEN : Color.BLACK;
+			for (Rectangle curr : rects)
+				if (curr.getColor() != done)
+					curr.setColor(done, g);
+		}
+
+		@Override
+		public boolean hasNextStep() {
+			return layer < layers.size();
+		}
+
+	}
+
+	/**
+	 * Implements quickselect on the rectangles, moving the k smallest rectangles
+	 * to the front with the k-th smallest at index k - 1. Only the range that
+	 * still holds index k - 1 is partitioned again, everything that is ruled out
+	 * is grayed out and never touched again. As introselect it uses median of
+	 * three pivots and falls back to median of medians pivots once it has
+	 * partitioned 2 log n times, which bounds the worst case to O(n).
+	 */
+	private class QuickSelect implements SortingIterator {
+		private final Random random;
+		private final boolean intro;
+		private final int target;
+		private int start;
+		private int end;
+		private int firstIndLarger;
+		private int i;
+		private int budget; // partitions left before falling back to median of medians
+
+		public QuickSelect(boolean intro) {
+			this.intro = intro;
+			random = new Random();
+			target = Math.min(k, rects.size()) - 1;
+			start = 0;
+			end = rects.size() - 1;
+			i = -1;
+			budget = 2 * (31 - Integer.numberOfLeadingZeros(rects.size()));
+		}
+
+		@Override
+		public void nextStep() {
+			if (i == -1) {
+				int pivot;
+				if (!intro)
+					pivot = random.nextInt(start, end + 1);
+				else if (budget > 0)
+					pivot = medianOfThree(start, (start + end) >>> 1, end);
+				else
+					pivot = medianOfMedians(start, end);
+				budget--;
+				swap(end, pivot);
+				rects.get(end).setColor(Color.RED, g);
+				firstIndLarger = start;
+				i = start;
+				return;
+			}
+			if (i == end) {
+				swap(end, firstIndLarger);
+				int pivot = firstIndLarger;
+				i = -1;
+				if (target < pivot) {
+					discard(pivot, end);
+					end = pivot - 1;
+				} else if (target > pivot) {
+					discard(start, pivot);
+					start = pivot + 1;
+				} else {
+					discard(start, end);
+					start = end = pivot;
+				}
+				for (int j = start; j <= end; j++)
+					rects.get(j).setColor(Color.BLACK, g);
+				if (start == end)
+					for (int j = 0; j <= target; j++)
+						rects.get(j).setColor(Color.GREEN, g);
+				status = String.format("k=%d, %d of %d rectangles left", target + 1, end - start + 1, rects.size());
+				return;
+			}
+			if (cmp(i, end) < 0) {
+				rects.get(i).setColor(Color.CYAN, g);
+				swap(i, firstIndLarger);
+				firstIndLarger++;
+			} else {
+				rects.get(i).setColor(Color.PINK, g);
+			}
+			i++;
+		}
+
+		/**
+		 * Grays out a range that can no longer hold the k-th smallest rectangle
+		 */
+		private void discard(int from, int to) {
+			for (int j = from; j <= to; j++)
+				rects.get(j).setColor(Color.LIGHT_GRAY, g);
+		}
+
+		private int medianOfThree(int a, int b, int c) {
+			if (cmp(a, b) < 0)
+				return cmp(b, c) < 0 ? b : cmp(a, c) < 0 ? c : a;
+			return cmp(a, c) < 0 ? a : cmp(b, c) < 0 ? c : b;
+		}
+
+		/**
+		 * Moves the median of every group of five to the front of a range and
+		 * selects the median of those medians, all within one step
+		 * 
+		 * @return the index of the median of medians
+		 */
+		private int medianOfMedians(int from, int to) {
+			if (to - from < 5) {
+				insertionSort(from, to);
+				return (from + to) >>> 1;
+			}
+			int medians = from;
+			for (int group = from; group <= to; group += 5) {
+				int last = Math.min(group + 4, to);
+				insertionSort(group, last);
+				if (medians != ((group + last) >>> 1))
+					swap(medians, (group + last) >>> 1);
+				medians++;
+			}
+			int mid = (from + medians - 1) >>> 1;
+			int lo = from;
+			int hi = medians - 1;
+			while (lo < hi) {
+				int pivot = partition(lo, hi, medianOfMedians(lo, hi));
+				if (pivot == mid)
+					return pivot;
+				if (mid < pivot)
+					hi = pivot - 1;
+				else
+					lo = pivot + 1;
+			}
+			return lo;
+		}
+
+		private int partition(int from, int to, int pivot) {
+			swap(to, pivot);
+			int store = from;
+			for (int j = from; j < to; j++)
+				if (cmp(j, to) < 0)
+					swap(j, store++);
+			swap(to, store);
+			return store;
+		}
+
+		@Override
+		public boolean hasNextStep() {
+			return start < end || i != -1;
+		}
+	}
+
+	/**
+	 * Finds the k smallest rectangles with a bounded max heap kept at the front
+	 * of the rectangles. Every other rectangle is compared once with the largest
+	 * rectangle in the heap and replaces it if it is smaller, then the heap is
+	 * sorted so the k smallest rectangles end up in order.
+	 */
+	private class HeapTopK implements SortingIterator {
+		private final int size;
+		private int next;
+		private int heapEnd;
+		private int replaced;
+
+		public HeapTopK() {
+			size = Math.min(k, rects.size());
+			next = size > 1 ? size / 2 - 1 : size;
+			heapEnd = size;
+			for (int i = 0; i < size; i++)
+				rects.get(i).setColor(Color.ORANGE, g);
+		}
+
+		@Override
+		public void nextStep() {
+			if (next >= 0 && next < size) {
+				// build the heap
+				siftDown(next, size);
+				next = next == 0 ? size : next - 1;
+			} else if (next < rects.size() && next >= size) {
+				// scan the rest, the root is the largest rectangle kept so far
+				if (cmp(next, 0) < 0) {
+					swap(next, 0);
+					rects.get(0).setColor(Color.ORANGE, g);
+					siftDown(0, size);
+					replaced++;
+				}
+				rects.get(next).setColor(Color.LIGHT_GRAY, g);
+				next++;
+			} else {
+				// sort the heap
+				heapEnd--;
+				if (heapEnd > 0) {
+					swap(0, heapEnd);
+					siftDown(0, heapEnd);
+				}
+				rects.get(heapEnd).setColor(Color.GREEN, g);
+			}
+			status = String.format("k=%d, %d of %d rectangles scanned, %d replaced the heap's largest", size,
+					Math.min(next, rects.size()), rects.size(), replaced);
+		}
+
+		private void siftDown(int parent, int end) {
+			while (2 * parent + 1 < end) {
+				int child = 2 * parent + 1;
+				if (child + 1 < end && cmp(child, child + 1) < 0)
+					child++;
+				if (cmp(parent, child) >= 0)
+					return;
+				swap(parent, child);
+				parent = child;
+			}
+		}
+
+		@Override
+		public boolean hasNextStep() {
+			return next < rects.size() || heapEnd > 0;
+		}
+	}
+
+	/**
+	 * Implements a binary insertion sort on the rectangles, which finds where each
+	 * rectangle goes with a binary search and then shifts the larger rectangles
+	 * up one at a time. It makes O(n log n) comparisons but O(n^2) writes.
+	 */
+	private class BinaryInsertionSort implements SortingIterator {
+		private int i;
+
+		public BinaryInsertionSort() {
+			i = 1;
+			rects.get(0).setColor(Color.GREEN, g);
+		}
+
+		@Override
+		public void nextStep() {
+			// insert after every equal rectangle to keep the sort stable
+			int lo = 0;
+			int hi = i;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (cmp(i, mid) < 0)
+					hi = mid;
+				else
+					lo = mid + 1;
+			}
+			Rectangle moving = at(i);
+			for (int j = i; j > lo; j--) {
+				set(j, Rectangle.mergeTwo(at(j - 1), at(j), g));
+				writes++;
+			}
+			if (lo != i) {
+				moving.setColor(Color.RED, g);
+				set(lo, Rectangle.mergeTwo(moving, at(lo), g));
+				writes++;
+			}
+			for (int j = 0; j <= i; j++)
+				rects.get(j).setColor(j == lo ? Color.RED : Color.GREEN, g);
+			i++;
+			if (i == rects.size())
+				rects.get(lo).setColor(Color.GREEN, g);
+		}
+
+		@Override
+		public boolean hasNextStep() {
+			return i < rects.size();
+		}
+	}
+
+	/**
+	 * Implements Ford and Johnson's merge-insertion sort, which comes closest to
+	 * the lower bound of comparisons. It is planned in the first step: all of its
+	 * comparisons are made on the rectangles in place while sorting their indices.
+	 * The steps after that replay the comparisons two rectangles at a time and
+	 * then move every misplaced rectangle straight to its final index with one
+	 * write each.
+	 */
+	private class MergeInsertionSort implements SortingIterator {
+		private final Rectangle[] items;
+		private final List<int[]> plan;
+		private int[] order;
+		private int replayed;
+		private int placed;
+
+		public MergeInsertionSort() {
+			items = new Rectangle[rects.size()];
+			plan = new ArrayList<>();
+		}
+
+		@Override
+		public void nextStep() {
+			if (order == null) {
+				for (int i = 0; i < items.length; i++) {
+					items[i] = at(i);
+					auxAccess(i);
+				}
+				List<Integer> ids = new ArrayList<>();
+				for (int i = 0; i < items.length; i++)
+					ids.add(i);
+				order = sort(ids).stream().mapToInt(Integer::intValue).toArray();
+				status = String.format("merge-insertion: %d comparisons planned", plan.size());
+				return;
+			}
+			if (replayed > 0) {
+				int[] last = plan.get(replayed - 1);
+				rects.get(last[0]).setColor(Color.BLACK, g);
+				rects.get(last[1]).setColor(Color.BLACK, g);
+			}
+			if (replayed < plan.size()) {
+				int[] pair = plan.get(replayed++);
+				rects.get(pair[0]).setColor(Color.RED, g);
+				rects.get(pair[1]).setColor(Color.RED, g);
+				return;
+			}
+			// items keeps every rectangle, so overwritten ones can still be copied
+			while (placed < order.length && order[placed] == placed)
+				rects.get(placed++).setColor(Color.GREEN, g);
+			if (placed < order.length) {
+				Rectangle moving = items[order[placed]];
+				auxAccess(order[placed]);
+				moving.setColor(Color.GREEN, g);
+				set(placed, Rectangle.mergeTwo(moving, at(placed), g));
+				writes++;
+				placed++;
+			}
+			while (placed < order.length && order[placed] == placed)
+				rects.get(placed++).setColor(Color.GREEN, g);
+		}
+
+		@Override
+		public boolean hasNextStep() {
+			return order == null || replayed < plan.size() || placed < order.length;
+		}
+
+		/**
+		 * Sorts indices of rectangles with merge-insertion: sort the larger of each
+		 * pair recursively, then binary insert the smaller ones in the order of the
+		 * Jacobsthal numbers so every search runs over at most 2^k - 1 rectangles
+		 * 
+		 * @param ids the indices to sort
+		 * @return the sorted indices
+		 */
+		private List<Integer> sort(List<Integer> ids) {
+			if (ids.size() < 2)
+				return ids;
+			Map<Integer, Integer> partner = new HashMap<>();
+			List<Integer> larger = new ArrayList<>();
+			for (int i = 0; i + 1 < ids.size(); i += 2) {
+				int a = ids.get(i);
+				int b = ids.get(i + 1);
+				boolean aLarger = compare(a, b) > 0;
+				larger.add(aLarger ? a : b);
+				partner.put(aLarger ? a : b, aLarger ? b : a);
+			}
+			List<Integer> chain = new ArrayList<>(sort(larger));
+			List<Integer> pend = new ArrayList<>();
+			for (int a : chain)
+				pend.add(partner.get(a));
+			List<Integer> bounds = new ArrayList<>(chain);
+			if (ids.size() % 2 == 1) {
+				pend.add(ids.get(ids.size() - 1));
+				bounds.add(null);
+			}
+			chain.add(0, pend.get(0));
+			// insert b(t_k) down to b(t_(k-1) + 1) where t_k are the Jacobsthal numbers
+			int done = 1;
+			for (int jacobsthal = 1, previous = 1; done < pend.size();) {
+				int next = jacobsthal + 2 * previous;
+				previous = jacobsthal;
+				jacobsthal = next;
+				for (int b = Math.min(jacobsthal, pend.size()) - 1; b >= done; b--) {
+					int id = pend.get(b);
+					int hi = bounds.get(b) == null ? chain.size() : chain.indexOf(bounds.get(b));
+					int lo = 0;
+					while (lo < hi) {
+						int mid = (lo + hi) >>> 1;
+						if (compare(id, chain.get(mid)) < 0)
+							hi = mid;
+						else
+							lo = mid + 1;
+					}
+					chain.add(lo, id);
+				}
+				done = Math.min(jacobsthal, pend.size());
+			}
+			return chain;
+		}
+
+		/**
+		 * Compares the rectangles at two indices and adds the comparison to the plan
+		 */
+		private int compare(int a, int b) {
+			plan.add(new int[] { a, b });
+			return cmp(a, b);
+		}
+	}
+
+	/**
+	 * Implements a cycle sort on the rectangles, which writes every rectangle at
+	 * most once. Each step counts the rectangles smaller than the one held to find
+	 * its final index, then writes it there and picks up the rectangle it
+	 * replaces, until the cycle gets back to where it started. It makes O(n^2)
+	 * comparisons.
+	 */
+	private class CycleSort implements SortingIterator {
+		private final boolean[] done; // indices that already hold their final rectangle
+		private int cycleStart;
+		private Rectangle held;
+
+		public CycleSort() {
+			done = new boolean[rects.size()];
+			cycleStart = 0;
+		}
+
+		@Override
+		public void nextStep() {
+			boolean starting = held == null;
+			if (starting)
+				held = at(cycleStart);
+			int pos = cycleStart;
+			for (int i = cycleStart + 1; i < rects.size(); i++)
+				if (cmp(held, i) > 0)
+					pos++;
+			if (starting && pos == cycleStart) {
+				held = null;
+				rects.get(cycleStart++).setColor(Color.GREEN, g);
+				return;
+			}
+			// equal rectangles already in place are skipped
+			while (cmp(held, pos) == 0)
+				pos++;
+			Rectangle replaced = at(pos);
+			held.setColor(Color.GREEN, g);
+			set(pos, Rectangle.mergeTwo(held, replaced, g));
+			writes++;
+			done[pos] = true;
+			held = replaced;
+			if (pos == cycleStart) {
+				held = null;
+				cycleStart++;
+			}
+			while (held == null && cycleStart < rects.size() - 1 && done[cycleStart])
+				cycleStart++;
+			if (!hasNextStep())
+				for (Rectangle curr : rects)
+					curr.setColor(Color.GREEN, g);
+		}
+
+		@Override
+		public boolean hasNextStep() {
+			return held != null || cycleStart < rects.size() - 1;
+		}
+	}
+
+	/**
+	 * Base of the string sorts, which look at the keys one character at a time
+	 * instead of comparing whole keys. Text data is sorted by its lines and
+	 * generated rectangles by the zero padded digits of their heights. Each step
+	 * handles one subarray from a stack of (start, end, character index), small
+	 * subarrays are finished with an insertion sort on the rest of the keys.
+	 */
+	private abstract class StringSort implements SortingIterator {
+		protected static final int CUTOFF = 8;
+		protected final Stack<int[]> stk;
+		protected final int end; // character value past the end of a key
+		private final int digits;
+
+		public StringSort() {
+			stk = new Stack<>();
+			stk.push(new int[] { 0, rects.size() - 1, 0 });
+			// descending text is sorted by complementing every character, which
+			// also makes a shorter key larger than the keys it is a prefix of
+			end = descendingKeys ? Character.MAX_VALUE + 1 : -1;
+			digits = String.valueOf(area.height).length();
+		}
+
+		/**
+		 * Returns character d of the key of the rectangle at an index
+		 * 
+		 * @param index the index of the rectangle
+		 * @param d     the index of the character
+		 * @return the character, or end past the end of the key
+		 */
+		protected int keyChar(int index, int d) {
+			// the characters are read from the key's own memory, not the list
+			Rectangle r = rects.get(index);
+			if (data == null) {
+				keyAccess((long) (area.height - r.getHeight()) * digits + d);
+				if (d >= digits)
+					return end;
+				int value = area.height - r.getHeight();
+				for (int i = d + 1; i < digits; i++)
+					value /= 10;
+				return '0' + value % 10;
+			}
+			int c = data.charAt(r.getRecord(), d);
+			if (!descendingKeys)
+				return c;
+			return c == -1 ? end : Character.MAX_VALUE - c;
+		}
+
+		/**
+		 * Insertion sorts a subarray whose keys all share their first d characters
+		 */
+		protected void insertionSort(int start, int stop, int d) {
+			for (int i = start + 1; i <= stop; i++)
+				for (int j = i; j > start && less(j, j - 1, d); j--)
+					swap(j, j - 1);
+			for (int i = start; i <= stop; i++)
+				rects.get(i).setColor(Color.GREEN, g);
+		}
+
+		/**
+		 * Compares the keys of two rectangles from character d on
+		 */
+		private boolean less(int a, int b, int d) {
+			comparisons++;
+			costModel.compared();
+			for (;; d++) {
+				int ca = keyChar(a, d);
+				int cb = keyChar(b, d);
+				if (ca != cb)
+					return ca < cb;
+				if (ca == end)
+					return false;
+			}
+		}
+
+		/**
+		 * Queues a subarray whose keys share their first d characters, or marks it
+		 * as sorted if it cannot hold keys out of order
+		 */
+		protected void push(int start, int stop, int d, boolean done) {
+			if (done || start >= stop) {
+				for (int i = start; i <= stop; i++)
+					rects.get(i).setColor(Color.GREEN, g);
+				return;
+			}
+			stk.push(new int[] { start, stop, d });
+		}
+
+		@Override
+		public boolean hasNextStep() {
+			return !stk.isEmpty();
+		}
+	}
+
+	/**
+	 * Implements an MSD string radix sort. Each step distributes a subarray into
+	 * one bucket per character at the current index with key indexed counting,
+	 * copying the rectangles back like MergeSort does. Buckets alternate between
+	 * blue and cyan.
+	 */
+	private class MsdRadixSort extends StringSort {
+		private final Rectangle[] aux;
+
+		public MsdRadixSort() {
+			aux = new Rectangle[rects.size()];
+		}
+
+		@Override
+		public void nextStep() {
+			int[] part = stk.pop();
+			int start = part[0];
+			int stop = part[1];
+			int d = part[2];
+			if (stop - start < CUTOFF) {
+				insertionSort(start, stop, d);
+				return;
+			}
+			int length = stop - start + 1;
+			int[] keys = new int[length];
+			int min = Integer.MAX_VALUE;
+			int max = Integer.MIN_VALUE;
+			for (int i = 0; i < length; i++) {
+				keys[i] = keyChar(start + i, d);
+				min = Math.min(min, keys[i]);
+				max = Math.max(max, keys[i]);
+			}
+			// count[r] ends up as the first index of bucket r
+			int[] count = new int[max - min + 2];
+			for (int key : keys)
+				count[key - min + 1]++;
+			for (int r = 0; r + 1 < count.length; r++)
+				count[r + 1] += count[r];
+			int[] next = count.clone();
+			for (int i = 0; i < length; i++) {
+				auxAccess(next[keys[i] - min]);
+				aux[next[keys[i] - min]++] = at(start + i);
+			}
+			for (int r = 0, bucket = 0; r + 1 < count.length; r++) {
+				if (count[r] == count[r + 1])
+					continue;
+				Color color = bucket++ % 2 == 0 ? Color.BLUE : Color.CYAN;
+				for (int i = count[r]; i < count[r + 1]; i++) {
+					Rectangle old = at(start + i);
+					auxAccess(i);
+					aux[i].setColor(color, g);
+					set(start + i, Rectangle.mergeTwo(aux[i], old, g));
+					writes++;
+				}
+				push(start + count[r], start + count[r + 1] - 1, d + 1, r + min == end);
+			}
+		}
+	}
+
+	/**
+	 * Implements Bentley and Sedgewick's multikey quicksort. Each step partitions
+	 * a subarray three ways on the character at the current index of a random
+	 * pivot, smaller characters become blue, equal ones orange and larger ones
+	 * cyan. Only the equal part moves on to the next character.
+	 */
+	private class MultikeyQuickSort extends StringSort {
+		private final Random random;
+
+		public MultikeyQuickSort() {
+			random = new Random();
+		}
+
+		@Override
+		public void nextStep() {
+			int[] part = stk.pop();
+			int start = part[0];
+			int stop = part[1];
+			int d = part[2];
+			if (stop - start < CUTOFF) {
+				insertionSort(start, stop, d);
+				return;
+			}
+			swap(start, random.nextInt(start, stop + 1));
+			int pivot = keyChar(start, d);
+			int lt = start;
+			int gt = stop;
+			int i = start + 1;
+			while (i <= gt) {
+				int c = keyChar(i, d);
+				comparisons++;
+				costModel.compared();
+				if (c < pivot)
+					swap(lt++, i++);
+				else if (c > pivot)
+					swap(i, gt--);
+				else
+					i++;
+			}
+			for (int j = start; j <= stop; j++)
+				rects.get(j).setColor(j < lt ? Color.BLUE : j > gt ? Color.CYAN : Color.ORANGE, g);
+			push(start, lt - 1, d, false);
+			push(gt + 1, stop, d, false);
+			push(lt, gt, d + 1, pivot == end);
+		}
+	}
+
+	/**
+	 * Keeps a never ending stream of random keys ordered in a StreamIndex. Every
+	 * step a batch of keys arrives and the rectangles are redrawn as evenly spaced
+	 * keys of the sorted view, so they always show the current distribution.
+	 * The view is read with rank queries, so a step costs about the rectangles
+	 * times log n and not a walk of the index. Only a window of the newest keys
+	 * is kept: once the current index holds a full window it becomes the previous
+	 * one and the one before it is dropped, so between one and two windows of
+	 * keys are shown. Rectangles whose key changed in the last step are red. The
+	 * view replaces the rectangles wholesale, so the listeners are told they were
+	 * rebuilt rather than written one at a time. The comparisons and moves of the
+	 * index are added to the panel's counts.
+	 */
+	private class StreamSort implements SortingIterator {
+		private final StreamIndex.Kind kind;
+		private final Random random;
+		private final int rate;
+		private final int fanout;
+		private final int memtable;
+		private final int window;
+		private final int[] view;
+		private StreamIndex current;
+		private StreamIndex previous; // the window before current, null until current first fills
+		private long inserted;
+		private long mergeMoves;
+
+		public StreamSort() {
+			kind = streamKind;
+			fanout = streamFanout;
+			memtable = streamMemtable;
+			current = StreamIndex.create(kind, fanout, memtable);
+			random = new Random();
+			rate = streamRate;
+			window = streamWindow;
+			view = new int[rects.size()];
+		}
+
+		@Override
+		public void nextStep() {
+			long worst = 0;
+			long compared = 0;
+			long moved = 0;
+			for (int i = 0; i < rate; i++) {
+				long comparedBefore = current.getComparisons();
+				long movedBefore = current.getMoves();
+				long mergedBefore = current.getMergeMoves();
+				current.insert(1 + random.nextInt(area.height - 1));
+				long c = current.getComparisons() - comparedBefore;
+				long m = current.getMoves() - movedBefore;
+				compared += c;
+				moved += m;
+				worst = Math.max(worst, c + m);
+				mergeMoves += current.getMergeMoves() - mergedBefore;
+				inserted++;
+				if (current.size() == window) {
+					previous = current;
+					current = StreamIndex.create(kind, fanout, memtable);
+				}
+			}
+			comparisons += compared;
+			writes += moved;
+			costModel.compared(compared);
+			costModel.written(moved);
+			int kept = current.size() + (previous == null ? 0 : previous.size());
+			StreamIndex.quantiles(view, previous == null ? List.of(current) : List.of(previous, current));
+			boolean changed = false;
+			for (int i = 0; i < view.length; i++) {
+				Rectangle old = rects.get(i);
+				if (old.getHeight() != area.height - view[i]) {
+					Rectangle arrived = new Rectangle(0, area.height - view[i], 0, view[i], Color.RED);
+					rects.set(i, Rectangle.mergeTwo(arrived, old, g));
+					changed = true;
+				} else if (old.getColor() != Color.BLACK) {
+					old.setColor(Color.BLACK, g);
+				}
+			}
+			if (changed)
+				for (SortListener listener : listeners)
+					listener.rebuilt();
+			status = String.format(
+					"%s: %d keys kept of %d, insert %.1f ops/key (worst %d this step), merges %.1f moves/key", kind,
+					kept, inserted, (compared + moved) / (double) rate, worst, mergeMoves / (double) inserted);
+		}
+
+		@Override
+		public boolean hasNextStep() {
+			// data never stops arriving
+			return true;
+		}
+	}
+
+	/**
+	 * Runs a distributed sample sort on a SampleSortCluster. The rectangles are
+	 * split into one segment per worker and every worker gets a copy of its
+	 * segment's ids and keys. Each phase runs on every worker at once on its own
+	 * thread: sorting its partition locally, sending evenly spaced samples to
+	 * pick splitters from, sending every bucket straight to the worker that owns
+	 * it over a loopback socket, and merging what it received into its final
+	 * range. The steps of a phase then draw what one worker returned. Every
+	 * worker's elements keep that worker's color, and the time and load of every
+	 * worker are shown in the status.
+	 */
+	private class SampleSort implements SortingIterator {
+		private final Color[] colors = { Color.BLUE, Color.ORANGE, Color.MAGENTA, Color.CYAN, Color.PINK,
+				Color.DARK_GRAY, Color.RED, Color.GREEN };
+		private SampleSortCluster cluster;
+		private Rectangle[] items; // the rectangles as they were at the start, referred to by id
+		private int[] ids; // id of the rectangle at each index
+		private int[] where; // index of the rectangle with each id
+		private int[] starts; // first index of each worker's segment, with the end at the back
+		private SampleSortCluster.Partition[] results; // what the workers returned in the current phase
+		private int[][] buckets; // size of the bucket each worker sent to each worker
+		private long clusterComparisons; // comparisons of the workers already counted
+		private int phase;
+		private int worker;
+
+		public SampleSort() throws IOException {
+			if (data == null && comparator != BYHEIGHT)
+				throw new UnsupportedOperationException("the workers can only sort the panel's own keys");
+			int n = rects.size();
+			int count = Math.min(workers, n);
+			boolean text = data != null && data.isText();
+			cluster = new SampleSortCluster(count, text, data != null && descendingKeys);
+			items = rects.toArray(new Rectangle[0]);
+			ids = new int[n];
+			where = new int[n];
+			starts = new int[count + 1];
+			for (int w = 0; w <= count; w++)
+				starts[w] = (int) ((long) n * w / count);
+			for (int w = 0; w < count; w++)
+				for (int i = starts[w]; i < starts[w + 1]; i++) {
+					ids[i] = i;
+					where[i] = i;
+					rects.get(i).setColor(colors[w % colors.length], g);
+				}
+			phase = 0;
+			worker = 0;
+		}
+
+		@Override
+		public void nextStep() {
+			int count = cluster.getWorkers();
+			try {
+				switch (phase) {
+				case 0 -> localSort();
+				case 1 -> pickSplitters();
+				case 2 -> exchange();
+				default -> mergeReceived();
+				}
+			} catch (IOException e) {
+				status = "sample sort failed: " + e.getMessage();
+				phase = 4;
+				close();
+				return;
+			}
+			long workerComparisons = cluster.getComparisons();
+			comparisons += workerComparisons - clusterComparisons;
+			clusterComparisons = workerComparisons;
+			if (phase != 1)
+				worker++;
+			if (phase == 1 || worker == count) {
+				phase++;
+				worker = 0;
+			}
+			StringBuilder loads = new StringBuilder();
+			StringBuilder millis = new StringBuilder();
+			for (int w = 0; w < count; w++) {
+				loads.append(w == 0 ? "" : "/").append(starts[w + 1] - starts[w]);
+				millis.append(w == 0 ? "" : "/").append(String.format("%.1f", cluster.getNanos(w) / 1e6));
+			}
+			status = String.format("%d workers, %s, %d bytes moved, elements per worker %s, ms per worker %s", count,
+					new String[] { "local sort", "sampling", "exchange", "merge", "done" }[Math.min(phase, 4)],
+					cluster.getBytesMoved(), loads, millis);
+			if (phase == 4)
+				close();
+		}
+
+		/**
+		 * Hands every worker its segment on the first step, then draws the sorted
+		 * segment of the current worker
+		 * 
+		 * @throws IOException if a worker fails
+		 */
+		private void localSort() throws IOException {
+			if (worker == 0) {
+				SampleSortCluster.Partition[] partitions = new SampleSortCluster.Partition[cluster.getWorkers()];
+				for (int w = 0; w < partitions.length; w++) {
+					int[] segment = new int[starts[w + 1] - starts[w]];
+					for (int i = 0; i < segment.length; i++)
+						segment[i] = ids[starts[w] + i];
+					partitions[w] = partition(segment);
+				}
+				results = cluster.sort(partitions);
+			}
+			write(starts[worker], results[worker], colors[worker % colors.length]);
+		}
+
+		/**
+		 * Collects the workers' samples and keeps evenly spaced splitters from the
+		 * sorted samples
+		 * 
+		 * @throws IOException if a worker fails
+		 */
+		private void pickSplitters() throws IOException {
+			int count = cluster.getWorkers();
+			List<Integer> samples = new ArrayList<>();
+			for (SampleSortCluster.Partition sample : cluster.sample((count - 1) * oversampling)) {
+				for (int s = 0; s < sample.size(); s++) {
+					samples.add(sample.id(s));
+					rects.get(where[sample.id(s)]).setColor(Color.BLACK, g);
+				}
+			}
+			samples.sort(this::compareIds);
+			int[] splitters = new int[count - 1];
+			for (int s = 0; s < splitters.length; s++)
+				splitters[s] = samples.get((int) ((long) samples.size() * (s + 1) / count));
+			buckets = null;
+			results = new SampleSortCluster.Partition[] { partition(splitters) };
+		}
+
+		/**
+		 * Has every worker send its buckets to each other on the first step, then
+		 * colors the current worker's segment by where each bucket went
+		 * 
+		 * @throws IOException if a worker fails
+		 */
+		private void exchange() throws IOException {
+			if (worker == 0)
+				buckets = cluster.exchange(results[0]);
+			int index = starts[worker];
+			for (int to = 0; to < buckets[worker].length; to++)
+				for (int i = 0; i < buckets[worker][to]; i++)
+					rects.get(index++).setColor(colors[to % colors.length], g);
+		}
+
+		/**
+		 * Has every worker merge what it received on the first step, then draws the
+		 * current worker's final range, which starts after everything the workers
+		 * before it received
+		 * 
+		 * @throws IOException if a worker fails
+		 */
+		private void mergeReceived() throws IOException {
+			if (worker == 0)
+				results = cluster.merge();
+			// every merge ends where the next worker's final range starts
+			starts[worker + 1] = starts[worker] + results[worker].size();
+			write(starts[worker], results[worker], colors[worker % colors.length]);
+		}
+
+		/**
+		 * Copies the keys of some ids into a partition for a worker, so the workers
+		 * never read the rectangles or the data set
+		 */
+		private SampleSortCluster.Partition partition(int[] segment) {
+			if (data != null && data.isText()) {
+				String[] texts = new String[segment.length];
+				for (int i = 0; i < segment.length; i++)
+					texts[i] = data.string(items[segment[i]].getRecord());
+				return new SampleSortCluster.Partition(segment, null, texts);
+			}
+			long[] keys = new long[segment.length];
+			for (int i = 0; i < segment.length; i++)
+				keys[i] = data == null ? -items[segment[i]].getHeight() : data.sortKey(items[segment[i]].getRecord());
+			return new SampleSortCluster.Partition(segment, keys, null);
+		}
+
+		/**
+		 * Compares the keys of two ids, counting the comparison
+		 */
+		private int compareIds(int a, int b) {
+			comparisons++;
+			return comparator.compare(items[a], items[b]);
+		}
+
+		/**
+		 * Writes rectangles by id starting at an index, copying them over like
+		 * MergeSort does
+		 */
+		private void write(int start, SampleSortCluster.Partition order, Color color) {
+			for (int i = 0; i < order.size(); i++) {
+				Rectangle slot = at(start + i);
+				Rectangle item = items[order.id(i)];
+				item.setColor(color, g);
+				set(start + i, Rectangle.mergeTwo(item, slot, g));
+				ids[start + i] = order.id(i);
+				where[order.id(i)] = start + i;
+				writes++;
+			}
+		}
+
+		@Override
+		public boolean hasNextStep() {
+			return phase < 4;
+		}
+
+		@Override
+		public void close() {
+			cluster.close();
+		}
+	}
+
+	/**
+	 * Tasks for performTask. START, PAUSE, RESUME, STEPMODE, DELAY, RESIZE, LOAD
+	 * and EXECUTE are commands for a SortController and are ignored by
+	 * performTask.
+	 */
 	public enum Task {
-		TOGGLEPAUSE, NEXTSTEP, PERMUTE, BUILDASCENDING, BUILDDESCENDING, BUBBLE, SELECTION, INSERTION, SHELL, QUICK,
-		MERGE
+		TOGGLEPAUSE, NEXTSTEP, PERMUTE, BUILDASCENDING, BUILDDESCENDING, BUILDSKEWED, BUBBLE, SELECTION, INSERTION, SHELL,
+		QUICK, MERGE, BITONIC, ODDEVENMERGE, SAMPLESORT, POWER, QUICKSELECT, INTROSELECT, TOPK, STREAM, MSDRADIX,
+		MULTIKEYQUICK, BINARYINSERTION, MERGEINSERTION, CYCLE, BRANCHLESSLOMUTO, BLOCKQUICK, START, PAUSE, RESUME,
+		STEPMODE, DELAY, RESIZE, LOAD, EXECUTE
 	}
 
 	@Override
@@ -0,0 +1,89 @@
+package sortVisualizer;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JPanel;
+
+/**
+ * Draws the progress of an ExternalSorter as one band per pass. Each band is
+ * split into the runs written during that pass, and the part of the band that
+ * has not been written yet is left gray.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class ExternalSortPanel extends JPanel implements ExternalSorter.Listener {
+	private static final long serialVersionUID = 1L;
+	private static final int BANDHEIGHT = 30;
+	private static final Color[] RUNCOLORS = { Color.BLUE, Color.CYAN };
+	private final long total;
+	private final List<List<Long>> passes;
+	private final List<Long> progress;
+
+	/**
+	 * Builds a panel for a sort of the given number of elements
+	 *
+	 * @param total the number of elements being sorted
+	 */
+	public ExternalSortPanel(long total) {
+		this.total = Math.max(total, 1);
+		passes = new ArrayList<>();
+		progress = new ArrayList<>();
+		setBackground(Color.WHITE);
+	}
+
+	@Override
+	public synchronized void runWritten(int pass, long elements) {
+		while (passes.size() <= pass)
+			passes.add(new ArrayList<>());
+		passes.get(pass).add(elements);
+		repaint();
+	}
+
+	@Override
+	public synchronized void progress(int pass, long elements) {
+		while (progress.size() <= pass)
+			progress.add(0L);
+		progress.set(pass, elements);
+		repaint();
+	}
+
+	@Override
+	protected synchronized void paintComponent(Graphics g) {
+		super.paintComponent(g);
+		int width = getWidth() - 20;
+		for (int pass = 0; pass < progress.size(); pass++) {
+			int y = 10 + pass * (BANDHEIGHT + 10);
+			g.setColor(Color.LIGHT_GRAY);
+			g.fillRect(10, y, width, BANDHEIGHT);
+			// runs that are finished
+			long start = 0;
+			List<Long> runs = pass < passes.size() ? passes.get(pass) : List.of();
+			for (int i = 0; i < runs.size(); i++) {
+				g.setColor(RUNCOLORS[i % RUNCOLORS.length]);
+				int x = 10 + (int) (width * start / total);
+				int w = Math.max(1, (int) (width * (start + runs.get(i)) / total) - (x - 10));
+				g.fillRect(x, y, w, BANDHEIGHT);
+				start += runs.get(i);
+			}
+			// the run currently being written
+			long done = progress.get(pass);
+			if (done > start) {
+				g.setColor(Color.RED);
+				int x = 10 + (int) (width * start / total);
+				g.fillRect(x, y, (int) (width * done / total) - (x - 10), BANDHEIGHT);
+			}
+			g.setColor(Color.BLACK);
+			g.drawString((pass == 0 ? "runs: " : "pass " + pass + ": ") + runs.size(), 12, y + BANDHEIGHT - 10);
+		}
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		return new Dimension(550, 250);
+	}
+}
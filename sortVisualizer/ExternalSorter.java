@@ -0,0 +1,323 @@
+package sortVisualizer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Sorts a binary file of big endian longs that may be larger than the heap.
+ * The input is sorted in runs of runSize elements that are spilled to
+ * temporary files, then the runs are combined fanIn at a time with a heap based
+ * k-way merge until one run is left. The input and the runs are read through
+ * plain buffered channel reads, since a mapping cannot be released before its
+ * file is deleted.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class ExternalSorter {
+	private static final int READBUFFER = 1 << 16; // bytes read from a run at a time while merging
+	private static final int REPORTEVERY = 1 << 16; // elements between progress reports
+	private final int runSize;
+	private final int fanIn;
+	private final Listener listener;
+	private long bytesRead;
+	private long bytesWritten;
+
+	/**
+	 * Receives the progress of an external sort, used to draw the runs and the
+	 * merge progress
+	 */
+	public interface Listener {
+		/**
+		 * Called when a run has been completely written
+		 *
+		 * @param pass     0 for the runs spilled from the input, otherwise the merge
+		 *                 pass that produced the run
+		 * @param elements the length of the run
+		 */
+		public void runWritten(int pass, long elements);
+
+		/**
+		 * Called periodically while a pass is writing runs
+		 *
+		 * @param pass     the current pass
+		 * @param elements the number of elements written so far in this pass
+		 */
+		public void progress(int pass, long elements);
+	}
+
+	/**
+	 * Builds an external sorter
+	 *
+	 * @param runSize  number of elements sorted in memory at a time
+	 * @param fanIn    number of runs merged at a time
+	 * @param listener told about the progress of the sort
+	 */
+	public ExternalSorter(int runSize, int fanIn, Listener listener) {
+		if (runSize < 1 || fanIn < 2)
+			throw new IllegalArgumentException("run size must be at least 1 and fan-in at least 2");
+		this.runSize = runSize;
+		this.fanIn = fanIn;
+		this.listener = listener;
+	}
+
+	/**
+	 * Sorts the longs in input and writes them to output
+	 *
+	 * @param input  file of big endian longs
+	 * @param output where the sorted longs are written
+	 * @return the number of merge passes
+	 * @throws IOException              if reading, writing or creating temporary
+	 *                                  files fails
+	 * @throws IllegalArgumentException if the input is not a whole number of
+	 *                                  longs, or a run does not fit in the free
+	 *                                  heap
+	 */
+	public int sort(Path input, Path output) throws IOException {
+		long length = Files.size(input);
+		if (length % Long.BYTES != 0)
+			throw new IllegalArgumentException(String.format(
+					"%s is %d bytes, %d trailing bytes after the last whole long", input, length, length % Long.BYTES));
+		long total = length / Long.BYTES;
+		// no run is longer than the input
+		int runLength = (int) Math.min(runSize, total);
+		Runtime runtime = Runtime.getRuntime();
+		long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+		if ((long) runLength * Long.BYTES > free)
+			throw new IllegalArgumentException(String.format("a run of %d longs needs %d MB, only %d MB of heap is free",
+					runLength, ((long) runLength * Long.BYTES) >> 20, free >> 20));
+		bytesRead = 0;
+		bytesWritten = 0;
+		Path dir = Files.createTempDirectory("extsort");
+		try {
+			List<Path> runs = spillRuns(input, total, runLength, dir);
+			int pass = 0;
+			while (runs.size() > 1) {
+				pass++;
+				List<Path> merged = new ArrayList<>();
+				long done = 0;
+				for (int i = 0; i < runs.size(); i += fanIn) {
+					List<Path> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+					Path out = dir.resolve("pass" + pass + "-" + merged.size());
+					done = merge(group, out, pass, done);
+					for (Path run : group)
+						Files.delete(run);
+					merged.add(out);
+				}
+				runs = merged;
+			}
+			if (runs.isEmpty())
+				Files.write(output, new byte[0]);
+			else
+				Files.move(runs.get(0), output, StandardCopyOption.REPLACE_EXISTING);
+			return pass;
+		} finally {
+			try (var left = Files.list(dir)) {
+				for (Path p : left.toList())
+					Files.delete(p);
+			}
+			Files.delete(dir);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes read by the last sort, including reading runs
+	 * back while merging
+	 *
+	 * @return bytes read
+	 */
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	/**
+	 * Returns the number of bytes written by the last sort, including spilled and
+	 * merged runs
+	 *
+	 * @return bytes written
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/**
+	 * Reads the input one run at a time, sorts each run in memory and writes it
+	 * to its own file
+	 *
+	 * @param input     the input file
+	 * @param total     the number of longs in the input
+	 * @param runLength the number of longs in every run but the last
+	 * @param dir       the directory for the run files
+	 * @return the run files in input order
+	 * @throws IOException if reading or writing fails
+	 */
+	private List<Path> spillRuns(Path input, long total, int runLength, Path dir) throws IOException {
+		List<Path> runs = new ArrayList<>();
+		long[] run = new long[runLength];
+		try (RunReader in = new RunReader(input)) {
+			for (long start = 0; start < total; start += runLength) {
+				int length = (int) Math.min(runLength, total - start);
+				for (int i = 0; i < length; i++) {
+					if (!in.advance())
+						throw new IOException(input + " got shorter while it was being sorted");
+					run[i] = in.current;
+				}
+				Arrays.sort(run, 0, length);
+				Path out = dir.resolve("run" + runs.size());
+				try (RunWriter writer = new RunWriter(out)) {
+					for (int i = 0; i < length; i++)
+						writer.write(run[i]);
+				}
+				runs.add(out);
+				listener.runWritten(0, length);
+				listener.progress(0, start + length);
+			}
+		}
+		return runs;
+	}
+
+	/**
+	 * Merges a group of sorted runs into one run using a heap of run readers
+	 *
+	 * @param group the runs to merge
+	 * @param out   the merged run
+	 * @param pass  the current pass
+	 * @param done  the number of elements already written in this pass
+	 * @return the number of elements written in this pass after this merge
+	 * @throws IOException if reading or writing fails
+	 */
+	private long merge(List<Path> group, Path out, int pass, long done) throws IOException {
+		PriorityQueue<RunReader> heap = new PriorityQueue<>((a, b) -> Long.compare(a.current, b.current));
+		List<RunReader> readers = new ArrayList<>();
+		long written = 0;
+		try (RunWriter writer = new RunWriter(out)) {
+			for (Path run : group) {
+				RunReader reader = new RunReader(run);
+				readers.add(reader);
+				if (reader.advance())
+					heap.add(reader);
+			}
+			while (!heap.isEmpty()) {
+				RunReader min = heap.poll();
+				writer.write(min.current);
+				written++;
+				if (written % REPORTEVERY == 0)
+					listener.progress(pass, done + written);
+				if (min.advance())
+					heap.add(min);
+			}
+		} finally {
+			for (RunReader reader : readers)
+				reader.close();
+		}
+		listener.runWritten(pass, written);
+		listener.progress(pass, done + written);
+		return done + written;
+	}
+
+	/**
+	 * Writes a file of random longs, used to try out the external sort
+	 *
+	 * @param file  the file to write
+	 * @param count the number of longs
+	 * @throws IOException if writing fails
+	 */
+	public static void writeRandom(Path file, long count) throws IOException {
+		Random rng = new Random();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			for (long i = 0; i < count; i++)
+				out.writeLong(rng.nextLong());
+		}
+	}
+
+	/**
+	 * Reads a file of longs, the input or a run, through a direct buffer
+	 */
+	private class RunReader implements AutoCloseable {
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+		long current;
+
+		public RunReader(Path file) throws IOException {
+			channel = FileChannel.open(file, StandardOpenOption.READ);
+			buffer = ByteBuffer.allocateDirect(READBUFFER);
+			buffer.flip();
+		}
+
+		/**
+		 * Moves to the next element of the run
+		 *
+		 * @return true if there was another element, false at the end of the run
+		 * @throws IOException if reading the run fails
+		 */
+		public boolean advance() throws IOException {
+			if (buffer.remaining() < Long.BYTES) {
+				// keep a partial long and read until a whole one is buffered
+				buffer.compact();
+				while (buffer.position() < Long.BYTES) {
+					int read = channel.read(buffer);
+					if (read < 0) {
+						buffer.flip();
+						if (buffer.hasRemaining())
+							throw new IOException("run file ends in the middle of a long");
+						return false;
+					}
+					bytesRead += read;
+				}
+				buffer.flip();
+			}
+			current = buffer.getLong();
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Writes longs to a run file through a direct buffer
+	 */
+	private class RunWriter implements AutoCloseable {
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+
+		public RunWriter(Path file) throws IOException {
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			buffer = ByteBuffer.allocateDirect(1 << 16);
+		}
+
+		public void write(long value) throws IOException {
+			if (!buffer.hasRemaining())
+				flush();
+			buffer.putLong(value);
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining())
+				bytesWritten += channel.write(buffer);
+			buffer.clear();
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package sortVisualizer;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+
+import javax.swing.JPanel;
+
+/**
+ * Plots measured values against input size together with the fitted growth
+ * curve from a ComplexityEstimator.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class GrowthPanel extends JPanel {
+	private static final long serialVersionUID = 1L;
+	private static final int MARGIN = 30;
+	private final ComplexityEstimator.Fit fit;
+	private final String title;
+
+	/**
+	 * Builds a panel that plots the given fit
+	 *
+	 * @param title what was measured
+	 * @param fit   the measurements and their fit
+	 */
+	public GrowthPanel(String title, ComplexityEstimator.Fit fit) {
+		this.title = title;
+		this.fit = fit;
+		setBackground(Color.WHITE);
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		super.paintComponent(g);
+		double[] sizes = fit.sizes();
+		double[] values = fit.values();
+		double maxX = sizes[sizes.length - 1];
+		double maxY = 1;
+		for (int i = 0; i < values.length; i++)
+			maxY = Math.max(maxY, Math.max(values[i], fit.fitted(sizes[i])));
+		int w = getWidth() - 2 * MARGIN;
+		int h = getHeight() - 2 * MARGIN;
+		g.setColor(Color.BLACK);
+		g.drawLine(MARGIN, MARGIN, MARGIN, MARGIN + h);
+		g.drawLine(MARGIN, MARGIN + h, MARGIN + w, MARGIN + h);
+		g.drawString(title + ": " + fit.model() + String.format(" (c=%.3g), n^%.2f", fit.constant(), fit.exponent()),
+				MARGIN, MARGIN - 10);
+		g.drawString("n=" + (int) maxX, MARGIN + w - 50, MARGIN + h + 20);
+
+		// fitted curve
+		g.setColor(Color.RED);
+		int prevX = MARGIN;
+		int prevY = MARGIN + h;
+		for (int px = 1; px <= w; px++) {
+			double n = maxX * px / w;
+			int y = MARGIN + h - (int) (h * fit.fitted(n) / maxY);
+			g.drawLine(prevX, prevY, MARGIN + px, y);
+			prevX = MARGIN + px;
+			prevY = y;
+		}
+		// measured points
+		g.setColor(Color.BLUE);
+		for (int i = 0; i < sizes.length; i++) {
+			int x = MARGIN + (int) (w * sizes[i] / maxX);
+			int y = MARGIN + h - (int) (h * values[i] / maxY);
+			g.fillOval(x - 3, y - 3, 6, 6);
+		}
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		return new Dimension(400, 300);
+	}
+}
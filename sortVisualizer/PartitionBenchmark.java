@@ -0,0 +1,239 @@
+package sortVisualizer;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Times the partitioning schemes of the QuickSorts on plain int arrays, where
+ * the cost of a mispredicted branch shows up, unlike in the operation counts
+ * of a DrawPanel. The classic Lomuto partition branches on every comparison,
+ * which on random data goes either way half the time. The branchless Lomuto
+ * partition always swaps and turns the comparison into an increment, and the
+ * block partition only records the offsets of misplaced elements in its
+ * comparison loop and swaps them in a separate loop.
+ *
+ * The skewed inputs pick the smallest of nine random elements as the pivot,
+ * about the 10% quantile, instead of the median of three. The partitions get
+ * unbalanced and the classic branch becomes predictable, which is where the
+ * branchless schemes gain the least.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class PartitionBenchmark {
+	/** the partitioning schemes, in the order the results are returned */
+	public static final String[] NAMES = { "quickSort", "branchlessLomutoSort", "blockQuickSort" };
+	private static final int CUTOFF = 16;
+	private static final int BLOCK = 128;
+	private static final int RUNS = 5;
+
+	/**
+	 * Partitions a range around the pivot at its end
+	 */
+	private interface Partitioner {
+		/**
+		 * @param a  the array
+		 * @param lo the first index
+		 * @param hi the last index, holding the pivot
+		 * @return the final index of the pivot, everything before it is smaller and
+		 *         nothing after it is
+		 */
+		int partition(int[] a, int lo, int hi);
+	}
+
+	/**
+	 * Returns the median nanoseconds per element each partitioning scheme takes to
+	 * sort the same random array, after a warm up run
+	 *
+	 * @param size   the number of elements
+	 * @param skewed true to pick unbalanced pivots
+	 * @param seed   the seed of the array and the pivot choices
+	 * @return the nanoseconds per element, in the order of NAMES
+	 */
+	public static double[] run(int size, boolean skewed, long seed) {
+		int[] input = new Random(seed).ints(size).toArray();
+		int[] expected = input.clone();
+		Arrays.sort(expected);
+		// the offset buffers are allocated once, not for every partition
+		int[] offsetsL = new int[BLOCK];
+		int[] offsetsR = new int[BLOCK];
+		Partitioner[] partitioners = { PartitionBenchmark::lomuto, PartitionBenchmark::branchlessLomuto,
+				(a, lo, hi) -> block(a, lo, hi, offsetsL, offsetsR) };
+		double[] results = new double[partitioners.length];
+		for (int p = 0; p < partitioners.length; p++) {
+			long[] nanos = new long[RUNS];
+			for (int run = -1; run < RUNS; run++) {
+				int[] copy = input.clone();
+				long start = System.nanoTime();
+				sort(copy, partitioners[p], skewed, new Random(seed));
+				if (run >= 0)
+					nanos[run] = System.nanoTime() - start;
+				if (run == -1 && !Arrays.equals(copy, expected))
+					throw new IllegalStateException(NAMES[p] + " did not sort");
+			}
+			Arrays.sort(nanos);
+			results[p] = nanos[RUNS / 2] / (double) Math.max(size, 1);
+		}
+		return results;
+	}
+
+	/**
+	 * A QuickSort with an explicit stack that insertion sorts small ranges
+	 */
+	private static void sort(int[] a, Partitioner partitioner, boolean skewed, Random random) {
+		int[] stack = new int[128];
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = a.length - 1;
+		int[] sample = new int[skewed ? 9 : 3];
+		while (top > 0) {
+			int hi = stack[--top];
+			int lo = stack[--top];
+			if (hi - lo + 1 <= CUTOFF) {
+				insertionSort(a, lo, hi);
+				continue;
+			}
+			for (int i = 0; i < sample.length; i++) {
+				sample[i] = random.nextInt(lo, hi + 1);
+				for (int j = i; j > 0 && a[sample[j - 1]] > a[sample[j]]; j--) {
+					int temp = sample[j];
+					sample[j] = sample[j - 1];
+					sample[j - 1] = temp;
+				}
+			}
+			swap(a, hi, sample[skewed ? 0 : 1]);
+			int pivot = partitioner.partition(a, lo, hi);
+			// the larger side goes on the stack first so it stays shallow
+			if (pivot - lo > hi - pivot) {
+				stack[top++] = lo;
+				stack[top++] = pivot - 1;
+				stack[top++] = pivot + 1;
+				stack[top++] = hi;
+			} else {
+				stack[top++] = pivot + 1;
+				stack[top++] = hi;
+				stack[top++] = lo;
+				stack[top++] = pivot - 1;
+			}
+		}
+	}
+
+	private static void insertionSort(int[] a, int lo, int hi) {
+		for (int i = lo + 1; i <= hi; i++) {
+			int key = a[i];
+			int j = i - 1;
+			for (; j >= lo && a[j] > key; j--)
+				a[j + 1] = a[j];
+			a[j + 1] = key;
+		}
+	}
+
+	private static void swap(int[] a, int i, int j) {
+		int temp = a[i];
+		a[i] = a[j];
+		a[j] = temp;
+	}
+
+	/**
+	 * The partition of the DrawPanel's QuickSort, swapping only smaller elements
+	 */
+	static int lomuto(int[] a, int lo, int hi) {
+		int pivot = a[hi];
+		int firstLarger = lo;
+		for (int i = lo; i < hi; i++)
+			if (a[i] < pivot)
+				swap(a, i, firstLarger++);
+		swap(a, hi, firstLarger);
+		return firstLarger;
+	}
+
+	/**
+	 * Swaps every element with the first larger one and only advances that index
+	 * past smaller elements, so the loop has no data dependent branch
+	 */
+	static int branchlessLomuto(int[] a, int lo, int hi) {
+		int pivot = a[hi];
+		int firstLarger = lo;
+		for (int i = lo; i < hi; i++) {
+			int x = a[i];
+			a[i] = a[firstLarger];
+			a[firstLarger] = x;
+			firstLarger += x < pivot ? 1 : 0;
+		}
+		swap(a, hi, firstLarger);
+		return firstLarger;
+	}
+
+	/**
+	 * The BlockQuicksort partition of Edelkamp and Weiss. A block at each end of
+	 * the range is scanned for the offsets of the elements on the wrong side,
+	 * always storing the offset and only advancing the count when it is
+	 * misplaced, then the misplaced pairs are swapped. A block whose offsets are
+	 * used up is replaced by the next one.
+	 */
+	static int block(int[] a, int lo, int hi, int[] offsetsL, int[] offsetsR) {
+		int pivot = a[hi];
+		int l = lo;
+		int r = hi - 1;
+		int startL = 0;
+		int startR = 0;
+		int numL = 0;
+		int numR = 0;
+		boolean rest = false;
+		while (true) {
+			int size = r - l + 1;
+			int sizeL = BLOCK;
+			int sizeR = BLOCK;
+			if (size <= 2 * BLOCK) {
+				// the last round splits what is left between the blocks
+				rest = true;
+				if (numL == 0 && numR == 0) {
+					sizeL = size / 2;
+					sizeR = size - sizeL;
+				} else if (numL == 0) {
+					sizeL = size - BLOCK;
+				} else {
+					sizeR = size - BLOCK;
+				}
+			}
+			if (numL == 0) {
+				startL = 0;
+				for (int j = 0; j < sizeL; j++) {
+					offsetsL[numL] = j;
+					numL += a[l + j] >= pivot ? 1 : 0;
+				}
+			}
+			if (numR == 0) {
+				startR = 0;
+				for (int j = 0; j < sizeR; j++) {
+					offsetsR[numR] = j;
+					numR += a[r - j] < pivot ? 1 : 0;
+				}
+			}
+			int num = Math.min(numL, numR);
+			for (int j = 0; j < num; j++)
+				swap(a, l + offsetsL[startL + j], r - offsetsR[startR + j]);
+			numL -= num;
+			numR -= num;
+			startL += num;
+			startR += num;
+			if (numL == 0)
+				l += sizeL;
+			if (numR == 0)
+				r -= sizeR;
+			if (rest)
+				break;
+		}
+		// at most one block still has misplaced elements, move them to its far end
+		if (numL > 0) {
+			while (numL > 0)
+				swap(a, l + offsetsL[startL + --numL], r--);
+			l = r + 1;
+		} else {
+			while (numR > 0)
+				swap(a, r - offsetsR[startR + --numR], l++);
+		}
+		swap(a, hi, l);
+		return l;
+	}
+}
@@ -16,6 +16,9 @@ public class Rectangle {
 	private int width;
 	private int height;
 	private boolean dontupdate; // prevents rectangle from being redrawn
+	private int record; // record number of this rectangle's key in a DataSet, -1 if none
+	// time each thread spent drawing rectangles, so its steps can tell drawing from sorting
+	private static final ThreadLocal<long[]> DRAWNANOS = ThreadLocal.withInitial(() -> new long[1]);
 
 	/**
 	 * Construct a Rectangle with the given position, size, and color
@@ -27,6 +30,22 @@ public class Rectangle {
 	 * @param color
 	 */
 	public Rectangle(int posX, int posY, int width, int height, Color color) {
+		this(posX, posY, width, height, color, -1);
+	}
+
+	/**
+	 * Construct a Rectangle with the given position, size, and color whose key is
+	 * a record of a DataSet
+	 * 
+	 * @param posX   - x position
+	 * @param posY   - y position
+	 * @param width
+	 * @param height
+	 * @param color
+	 * @param record - record number of the key
+	 */
+	public Rectangle(int posX, int posY, int width, int height, Color color, int record) {
+		this.record = record;
 		positionX = posX;
 		positionY = posY;
 		this.color = color;
@@ -44,12 +63,21 @@ public class Rectangle {
 		return positionY;
 	}
 
+	/**
+	 * Returns the record number of this rectangle's key in a DataSet
+	 * 
+	 * @return the record number, -1 if the key is the height
+	 */
+	public int getRecord() {
+		return record;
+	}
+
 	/**
 	 * Creates and returns a new rectangle with the xPosition and width of one
-	 * rectangle (copX) and the yPosition, height and color of another rectangle
-	 * (orig). also sets both rectangles to no longer update (get redrawn). Used in
-	 * merge sort to allow one rectangle to overwrite another, since rectangles are
-	 * copied over rather than swapped.
+	 * rectangle (copX) and the yPosition, height, color and record of another
+	 * rectangle (orig). also sets both rectangles to no longer update (get
+	 * redrawn). Used in merge sort to allow one rectangle to overwrite another,
+	 * since rectangles are copied over rather than swapped.
 	 * 
 	 * @param orig the rectangle whose height/yPosition to copy from
 	 * @param pos  the rectangle whose xPosition/width to copy from
@@ -57,7 +85,8 @@ public class Rectangle {
 	 * @return a new rectangle as described above
 	 */
 	public static Rectangle mergeTwo(Rectangle orig, Rectangle copX, Graphics g) {
-		Rectangle toRet = new Rectangle(copX.positionX, orig.positionY, copX.width, orig.height, orig.color);
+		Rectangle toRet = new Rectangle(copX.positionX, orig.positionY, copX.width, orig.height, orig.color,
+				orig.record);
 		copX.dontupdate = true;
 		orig.dontupdate = true;
 		toRet.draw(g);
@@ -108,10 +137,21 @@ public class Rectangle {
 	public void draw(Graphics g) {
 		if (dontupdate)
 			return;
+		long start = System.nanoTime();
 		g.setColor(color);
 		g.clearRect(positionX, 0, width, (height + positionY) * 1000);
 		g.fillRect(positionX, positionY, width, height);
 		g.setColor(Color.BLACK);
+		DRAWNANOS.get()[0] += System.nanoTime() - start;
+	}
 
+	/**
+	 * Returns the total time the calling thread has spent drawing rectangles,
+	 * including the redraws of setColor and mergeTwo
+	 * 
+	 * @return the nanoseconds spent drawing
+	 */
+	public static long getDrawNanos() {
+		return DRAWNANOS.get()[0];
 	}
 }
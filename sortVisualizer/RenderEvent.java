@@ -0,0 +1,26 @@
+package sortVisualizer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event for flushing a frame to the screen after a sort step
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+@Name("sortVisualizer.Render")
+@Label("Frame Flush")
+@Category("Sort Visualizer")
+@StackTrace(false)
+@Description("Drawing the heat map and flushing the frame after a step")
+@Threshold("1 ms")
+public class RenderEvent extends Event {
+	@Label("Rectangles")
+	int rectangles;
+}
@@ -0,0 +1,634 @@
+package sortVisualizer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A group of isolated workers in this JVM that run a distributed sample sort,
+ * only sharing data by sending it to each other over loopback sockets. Every
+ * worker listens on its own port, owns a copy of its partition and runs its
+ * local sort, its part of the all-to-all exchange and its final merge on its
+ * own thread, timing each of them. Keys travel with their ids, as longs or
+ * strings, so no worker ever reads another worker's keys.
+ * <p>
+ * The coordinator, the sort thread of a DrawPanel, starts each phase on every
+ * worker at once and waits for all of them, reading back only what it needs
+ * to draw.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class SampleSortCluster implements AutoCloseable {
+	private static final int SORT = 0; // message types
+	private static final int SAMPLE = 1;
+	private static final int EXCHANGE = 2;
+	private static final int MERGE = 3;
+	private static final int BUCKET = 4;
+	private static final int HEADERBYTES = 2 * Integer.BYTES; // type and sender before every bucket
+	private final Worker[] workers;
+	private final boolean text;
+	private final boolean descending;
+
+	/**
+	 * The ids of some elements with their keys, longs unless the cluster sorts
+	 * text
+	 */
+	public static class Partition {
+		private final int[] ids;
+		private final long[] keys;
+		private final String[] texts;
+
+		/**
+		 * Builds a partition
+		 *
+		 * @param ids   the ids of the elements
+		 * @param keys  their keys, ordered like longs, or null for text
+		 * @param texts their string keys, or null for long keys
+		 */
+		public Partition(int[] ids, long[] keys, String[] texts) {
+			this.ids = ids;
+			this.keys = keys;
+			this.texts = texts;
+		}
+
+		/**
+		 * Returns the number of elements
+		 *
+		 * @return the size
+		 */
+		public int size() {
+			return ids.length;
+		}
+
+		/**
+		 * Returns the id of an element
+		 *
+		 * @param i the position of the element
+		 * @return its id
+		 */
+		public int id(int i) {
+			return ids[i];
+		}
+
+		/**
+		 * Returns the elements at some positions, in that order
+		 */
+		private Partition select(int[] positions) {
+			int[] selectedIds = new int[positions.length];
+			long[] selectedKeys = keys == null ? null : new long[positions.length];
+			String[] selectedTexts = texts == null ? null : new String[positions.length];
+			for (int i = 0; i < positions.length; i++) {
+				selectedIds[i] = ids[positions[i]];
+				if (keys != null)
+					selectedKeys[i] = keys[positions[i]];
+				else
+					selectedTexts[i] = texts[positions[i]];
+			}
+			return new Partition(selectedIds, selectedKeys, selectedTexts);
+		}
+
+		/**
+		 * Returns the elements from up to (not including) to
+		 */
+		private Partition range(int from, int to) {
+			int[] positions = new int[to - from];
+			for (int i = 0; i < positions.length; i++)
+				positions[i] = from + i;
+			return select(positions);
+		}
+
+		/**
+		 * Returns the bytes the partition takes on a socket
+		 */
+		private long bytes() {
+			long bytes = Integer.BYTES + (long) ids.length * Integer.BYTES;
+			if (keys != null)
+				return bytes + (long) keys.length * Long.BYTES;
+			for (String key : texts)
+				bytes += Integer.BYTES + (long) key.length() * Character.BYTES;
+			return bytes;
+		}
+
+		private void write(DataOutputStream out) throws IOException {
+			out.writeInt(ids.length);
+			for (int i = 0; i < ids.length; i++) {
+				out.writeInt(ids[i]);
+				if (keys != null) {
+					out.writeLong(keys[i]);
+				} else {
+					out.writeInt(texts[i].length());
+					out.writeChars(texts[i]);
+				}
+			}
+		}
+
+		private static Partition read(DataInputStream in, boolean text) throws IOException {
+			int size = in.readInt();
+			int[] ids = new int[size];
+			long[] keys = text ? null : new long[size];
+			String[] texts = text ? new String[size] : null;
+			for (int i = 0; i < size; i++) {
+				ids[i] = in.readInt();
+				if (!text) {
+					keys[i] = in.readLong();
+					continue;
+				}
+				char[] chars = new char[in.readInt()];
+				for (int c = 0; c < chars.length; c++)
+					chars[c] = in.readChar();
+				texts[i] = new String(chars);
+			}
+			return new Partition(ids, keys, texts);
+		}
+	}
+
+	/**
+	 * What a worker sends back to the coordinator after a phase
+	 *
+	 * @param nanos       the time the worker spent on the phase
+	 * @param comparisons the comparisons the worker made in the phase
+	 * @param counts      the size of every bucket for EXCHANGE, otherwise empty
+	 * @param data        the worker's data after the phase, empty for EXCHANGE
+	 */
+	private record Reply(long nanos, long comparisons, int[] counts, Partition data) {
+		private void write(DataOutputStream out) throws IOException {
+			out.writeLong(nanos);
+			out.writeLong(comparisons);
+			out.writeInt(counts.length);
+			for (int count : counts)
+				out.writeInt(count);
+			data.write(out);
+		}
+
+		private static Reply read(DataInputStream in, boolean text) throws IOException {
+			long nanos = in.readLong();
+			long comparisons = in.readLong();
+			int[] counts = new int[in.readInt()];
+			for (int i = 0; i < counts.length; i++)
+				counts[i] = in.readInt();
+			return new Reply(nanos, comparisons, counts, Partition.read(in, text));
+		}
+	}
+
+	/**
+	 * A command read by a worker's network thread for its worker thread
+	 */
+	private record Request(int type, Socket socket, int argument, Partition data) {
+	}
+
+	/**
+	 * Starts the given number of workers, each listening on a free loopback port
+	 *
+	 * @param workers    the number of workers
+	 * @param text       true if the keys are strings, otherwise longs
+	 * @param descending true to sort the keys largest first
+	 * @throws IOException if a port cannot be opened
+	 */
+	public SampleSortCluster(int workers, boolean text, boolean descending) throws IOException {
+		this.workers = new Worker[workers];
+		this.text = text;
+		this.descending = descending;
+		for (int w = 0; w < workers; w++) {
+			try {
+				this.workers[w] = new Worker(w);
+			} catch (IOException e) {
+				close();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Compares two elements of two partitions
+	 */
+	private int compare(Partition a, int i, Partition b, int j) {
+		int result = text ? a.texts[i].compareTo(b.texts[j]) : Long.compare(a.keys[i], b.keys[j]);
+		return descending ? -result : result;
+	}
+
+	/**
+	 * Hands every worker its partition, which each sorts on its own thread
+	 *
+	 * @param partitions the partition of every worker
+	 * @return the sorted partition of every worker
+	 * @throws IOException if a worker fails
+	 */
+	public Partition[] sort(Partition[] partitions) throws IOException {
+		Reply[] replies = request(SORT, 0, partitions);
+		Partition[] sorted = new Partition[replies.length];
+		for (int w = 0; w < replies.length; w++)
+			sorted[w] = replies[w].data();
+		return sorted;
+	}
+
+	/**
+	 * Asks every worker for evenly spaced samples of its sorted partition
+	 *
+	 * @param perWorker the number of samples every worker takes
+	 * @return the samples of every worker, in order
+	 * @throws IOException if a worker fails
+	 */
+	public Partition[] sample(int perWorker) throws IOException {
+		Reply[] replies = request(SAMPLE, perWorker, null);
+		Partition[] samples = new Partition[replies.length];
+		for (int w = 0; w < replies.length; w++)
+			samples[w] = replies[w].data();
+		return samples;
+	}
+
+	/**
+	 * Has every worker send each bucket of its sorted partition straight to the
+	 * worker whose key range it falls in, all workers at once
+	 *
+	 * @param splitters the sorted splitters, one less than there are workers
+	 * @return the size of the bucket every worker sent to every worker
+	 * @throws IOException if a worker fails
+	 */
+	public int[][] exchange(Partition splitters) throws IOException {
+		Partition[] payloads = new Partition[workers.length];
+		Arrays.fill(payloads, splitters);
+		Reply[] replies = request(EXCHANGE, 0, payloads);
+		int[][] counts = new int[replies.length][];
+		for (int w = 0; w < replies.length; w++)
+			counts[w] = replies[w].counts();
+		return counts;
+	}
+
+	/**
+	 * Has every worker merge the buckets it received
+	 *
+	 * @return the final sorted range of every worker
+	 * @throws IOException if a worker fails
+	 */
+	public Partition[] merge() throws IOException {
+		Reply[] replies = request(MERGE, 0, null);
+		Partition[] merged = new Partition[replies.length];
+		for (int w = 0; w < replies.length; w++)
+			merged[w] = replies[w].data();
+		return merged;
+	}
+
+	/**
+	 * Sends a command to every worker before reading any reply, so the workers
+	 * run it at the same time
+	 *
+	 * @param type     the command
+	 * @param argument the number of samples for SAMPLE
+	 * @param payloads the partition for each worker, or null
+	 * @return the reply of every worker
+	 * @throws IOException if a worker cannot be reached or fails
+	 */
+	private Reply[] request(int type, int argument, Partition[] payloads) throws IOException {
+		Socket[] sockets = new Socket[workers.length];
+		try {
+			for (int w = 0; w < workers.length; w++) {
+				sockets[w] = new Socket(InetAddress.getLoopbackAddress(), workers[w].server.getLocalPort());
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(sockets[w].getOutputStream()));
+				out.writeInt(type);
+				out.writeInt(argument);
+				if (payloads != null)
+					payloads[w].write(out);
+				out.flush();
+			}
+			Reply[] replies = new Reply[workers.length];
+			for (int w = 0; w < workers.length; w++) {
+				replies[w] = Reply.read(new DataInputStream(new BufferedInputStream(sockets[w].getInputStream())),
+						text);
+				workers[w].finished(replies[w]);
+			}
+			return replies;
+		} finally {
+			for (Socket socket : sockets)
+				if (socket != null)
+					socket.close();
+		}
+	}
+
+	/**
+	 * Returns the time a worker has spent on its phases
+	 *
+	 * @param worker the worker
+	 * @return the nanoseconds the worker worked
+	 */
+	public synchronized long getNanos(int worker) {
+		return workers[worker].nanos;
+	}
+
+	/**
+	 * Returns the comparisons every worker has made
+	 *
+	 * @return the comparisons of all workers
+	 */
+	public synchronized long getComparisons() {
+		long total = 0;
+		for (Worker worker : workers)
+			total += worker.comparisons;
+		return total;
+	}
+
+	/**
+	 * Returns the bytes a worker has received from other workers
+	 *
+	 * @param worker the worker
+	 * @return the bytes received
+	 */
+	public synchronized long getBytesReceived(int worker) {
+		return workers[worker].bytesReceived;
+	}
+
+	/**
+	 * Returns the bytes moved between all workers
+	 *
+	 * @return the bytes moved
+	 */
+	public synchronized long getBytesMoved() {
+		long total = 0;
+		for (Worker worker : workers)
+			total += worker.bytesReceived;
+		return total;
+	}
+
+	/**
+	 * Returns the number of workers
+	 *
+	 * @return the number of workers
+	 */
+	public int getWorkers() {
+		return workers.length;
+	}
+
+	@Override
+	public void close() {
+		for (Worker worker : workers)
+			if (worker != null)
+				worker.close();
+	}
+
+	/**
+	 * One worker, with a network thread that accepts connections and a worker
+	 * thread that runs the commands on the worker's own data
+	 */
+	private class Worker {
+		private final int index;
+		private final ServerSocket server;
+		private final BlockingQueue<Request> requests;
+		private final List<Partition> inbox;
+		private final Thread network;
+		private final Thread thread;
+		private Partition data; // only touched by the worker thread
+		private long phaseComparisons; // only touched by the worker thread
+		private long nanos; // the totals are guarded by the cluster
+		private long comparisons;
+		private long bytesReceived;
+
+		public Worker(int index) throws IOException {
+			this.index = index;
+			server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+			requests = new LinkedBlockingQueue<>();
+			inbox = new ArrayList<>();
+			network = new Thread(this::accept, "worker-" + index + "-net");
+			network.setDaemon(true);
+			thread = new Thread(this::work, "worker-" + index);
+			thread.setDaemon(true);
+			network.start();
+			thread.start();
+		}
+
+		/**
+		 * Adds the time and comparisons of a finished phase to the totals
+		 */
+		private void finished(Reply reply) {
+			synchronized (SampleSortCluster.this) {
+				nanos += reply.nanos();
+				comparisons += reply.comparisons();
+			}
+		}
+
+		/**
+		 * Accepts connections until the cluster is closed. Buckets from other
+		 * workers go into the inbox and are acknowledged with one byte, commands
+		 * from the coordinator are handed to the worker thread.
+		 */
+		private void accept() {
+			while (!server.isClosed()) {
+				Socket socket;
+				try {
+					socket = server.accept();
+				} catch (IOException e) {
+					// the cluster was closed
+					continue;
+				}
+				try {
+					DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+					int type = in.readInt();
+					if (type == BUCKET) {
+						in.readInt(); // sender
+						Partition bucket = Partition.read(in, text);
+						synchronized (this) {
+							inbox.add(bucket);
+						}
+						synchronized (SampleSortCluster.this) {
+							bytesReceived += HEADERBYTES + bucket.bytes();
+						}
+						socket.getOutputStream().write(1);
+						socket.close();
+						continue;
+					}
+					int argument = in.readInt();
+					Partition payload = type == SORT || type == EXCHANGE ? Partition.read(in, text) : null;
+					requests.add(new Request(type, socket, argument, payload));
+				} catch (IOException e) {
+					// the sender went away, it sees the failure itself
+					try {
+						socket.close();
+					} catch (IOException closeFailed) {
+						e.addSuppressed(closeFailed);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Runs commands until the cluster is closed, answering each on its socket.
+		 * A command that fails closes its socket without a reply, which the
+		 * coordinator sees as a failed phase.
+		 */
+		private void work() {
+			while (true) {
+				Request request;
+				try {
+					request = requests.take();
+				} catch (InterruptedException e) {
+					return;
+				}
+				try (Socket socket = request.socket()) {
+					phaseComparisons = 0;
+					long start = System.nanoTime();
+					int[] counts = new int[0];
+					Partition result;
+					switch (request.type()) {
+					case SORT -> result = data = localSort(request.data());
+					case SAMPLE -> result = sample(request.argument());
+					case EXCHANGE -> {
+						counts = exchange(request.data());
+						result = new Partition(new int[0], text ? null : new long[0], text ? new String[0] : null);
+					}
+					default -> result = data = mergeInbox();
+					}
+					Reply reply = new Reply(System.nanoTime() - start, phaseComparisons, counts, result);
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+					reply.write(out);
+					out.flush();
+				} catch (IOException e) {
+					// the socket is closed and the coordinator fails the phase
+				}
+			}
+		}
+
+		private int compare(Partition a, int i, Partition b, int j) {
+			phaseComparisons++;
+			return SampleSortCluster.this.compare(a, i, b, j);
+		}
+
+		/**
+		 * Sorts a copy of the worker's partition with a bottom up merge sort of
+		 * its positions
+		 */
+		private Partition localSort(Partition partition) {
+			int n = partition.size();
+			int[] order = new int[n];
+			int[] temp = new int[n];
+			for (int i = 0; i < n; i++)
+				order[i] = i;
+			for (int width = 1; width < n; width *= 2) {
+				for (int lo = 0; lo + width < n; lo += 2 * width) {
+					int mid = lo + width;
+					int hi = Math.min(lo + 2 * width, n);
+					int i = lo;
+					int j = mid;
+					int k = lo;
+					while (i < mid && j < hi)
+						temp[k++] = compare(partition, order[i], partition, order[j]) <= 0 ? order[i++] : order[j++];
+					while (i < mid)
+						temp[k++] = order[i++];
+					while (j < hi)
+						temp[k++] = order[j++];
+					System.arraycopy(temp, lo, order, lo, hi - lo);
+				}
+			}
+			return partition.select(order);
+		}
+
+		/**
+		 * Takes evenly spaced samples of the sorted partition
+		 */
+		private Partition sample(int per) {
+			int length = data.size();
+			int[] positions = new int[length == 0 ? 0 : per];
+			for (int s = 1; s <= positions.length; s++)
+				positions[s - 1] = (int) ((long) length * s / (per + 1));
+			return data.select(positions);
+		}
+
+		/**
+		 * Sends every bucket of the sorted partition to the worker that owns its
+		 * key range, keeping its own bucket, and gives up the partition
+		 *
+		 * @return the size of every bucket
+		 * @throws IOException if a bucket cannot be delivered
+		 */
+		private int[] exchange(Partition splitters) throws IOException {
+			int[] counts = new int[workers.length];
+			int start = 0;
+			for (int to = 0; to < workers.length; to++) {
+				// bucket to holds keys after splitter to-1 and up to splitter to
+				int from = start;
+				while (start < data.size() && (to == splitters.size() || compare(data, start, splitters, to) <= 0))
+					start++;
+				counts[to] = start - from;
+				send(to, data.range(from, start));
+			}
+			data = null;
+			return counts;
+		}
+
+		/**
+		 * Sends a bucket to another worker and waits until it has been received.
+		 * A bucket a worker sends to itself stays local and is not counted as
+		 * moved.
+		 */
+		private void send(int to, Partition bucket) throws IOException {
+			if (to == index) {
+				synchronized (this) {
+					inbox.add(bucket);
+				}
+				return;
+			}
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), workers[to].server.getLocalPort())) {
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				out.writeInt(BUCKET);
+				out.writeInt(index);
+				bucket.write(out);
+				out.flush();
+				if (socket.getInputStream().read() != 1)
+					throw new IOException("worker " + to + " did not acknowledge");
+			}
+		}
+
+		/**
+		 * Merges the sorted buckets in the inbox with a heap of their heads
+		 */
+		private Partition mergeInbox() {
+			List<Partition> runs;
+			synchronized (this) {
+				runs = new ArrayList<>(inbox);
+				inbox.clear();
+			}
+			int[] heads = new int[runs.size()];
+			PriorityQueue<Integer> heap = new PriorityQueue<>(
+					(a, b) -> compare(runs.get(a), heads[a], runs.get(b), heads[b]));
+			int total = 0;
+			for (int r = 0; r < runs.size(); r++) {
+				total += runs.get(r).size();
+				if (runs.get(r).size() > 0)
+					heap.add(r);
+			}
+			int[] ids = new int[total];
+			long[] keys = text ? null : new long[total];
+			String[] texts = text ? new String[total] : null;
+			for (int i = 0; i < total; i++) {
+				int r = heap.poll();
+				Partition run = runs.get(r);
+				ids[i] = run.ids[heads[r]];
+				if (text)
+					texts[i] = run.texts[heads[r]];
+				else
+					keys[i] = run.keys[heads[r]];
+				if (++heads[r] < run.size())
+					heap.add(r);
+			}
+			return new Partition(ids, keys, texts);
+		}
+
+		private void close() {
+			thread.interrupt();
+			try {
+				server.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package sortVisualizer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event that sums up a batch of consecutive sort steps, committed every
+ * DrawPanel.STEPBATCH steps and when a sort ends. Its duration spans the whole
+ * batch, so the time not spent pacing, sleeping, drawing or rendering went to
+ * the algorithm.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+@Name("sortVisualizer.SortBatch")
+@Label("Sort Step Batch")
+@Category("Sort Visualizer")
+@StackTrace(false)
+@Description("A batch of consecutive sort steps")
+public class SortBatchEvent extends Event {
+	@Label("Algorithm")
+	String algorithm;
+
+	@Label("Steps")
+	int steps;
+
+	@Label("Comparisons")
+	long comparisons;
+
+	@Label("Writes")
+	long writes;
+
+	@Label("Pacing Time")
+	@Description("Time spent waiting for the delay between steps")
+	@Timespan
+	long pacingNanos;
+
+	@Label("Sleep Time")
+	@Description("Time spent pausing inside steps")
+	@Timespan
+	long sleepNanos;
+
+	@Label("Draw Time")
+	@Description("Time spent drawing rectangles inside steps")
+	@Timespan
+	long drawNanos;
+
+	@Label("Render Time")
+	@Description("Time spent flushing frames after steps")
+	@Timespan
+	long renderNanos;
+}
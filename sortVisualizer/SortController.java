@@ -0,0 +1,286 @@
+package sortVisualizer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+import sortVisualizer.DrawPanel.Task;
+
+/**
+ * Owns the thread that sorts a DrawPanel. Every other thread (usually the
+ * EDT) only posts commands to a lock-free queue that the sort thread drains
+ * between steps, so nothing but the sort thread touches the rectangles while a
+ * sort is set up or running. The state of the sort is published back as
+ * immutable snapshots that are delivered on the EDT.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class SortController {
+	/**
+	 * The states of the sort thread
+	 */
+	public enum State {
+		/** no sort has been started on the current list */
+		IDLE,
+		/** a sort is stepping on its own every delay milliseconds */
+		RUNNING,
+		/** a sort has started but only steps when asked to */
+		PAUSED,
+		/** the sort has no steps left */
+		FINISHED
+	}
+
+	/**
+	 * A command for the sort thread
+	 *
+	 * @param task     what to do
+	 * @param argument the size for RESIZE, the delay for DELAY or 1 to load data
+	 *                 descending for LOAD, otherwise unused
+	 * @param data     the sort to start for START, the DataSet for LOAD or the
+	 *                 Runnable for EXECUTE, otherwise unused
+	 */
+	public record Command(Task task, int argument, Object data) {
+		public Command(Task task) {
+			this(task, 0, null);
+		}
+	}
+
+	/**
+	 * An immutable view of the sort thread's state
+	 *
+	 * @param state    the current state
+	 * @param stepMode true if the next sort starts paused
+	 * @param delay    the delay between steps
+	 * @param count    the number of rectangles
+	 * @param message  an error from the last command, or null
+	 */
+	public record Snapshot(State state, boolean stepMode, int delay, int count, String message) {
+	}
+
+	private final DrawPanel plane;
+	private final Queue<Command> commands;
+	private final Thread sortThread;
+	private final AtomicReference<Snapshot> latest;
+	private final AtomicBoolean deliveryPending;
+	private final Consumer<Snapshot> view;
+	private State state;
+	private boolean stepMode;
+	private String message;
+
+	/**
+	 * Builds a controller and starts its sort thread
+	 *
+	 * @param plane the panel to sort
+	 * @param view  called on the EDT with the latest snapshot whenever the state
+	 *              changes
+	 */
+	public SortController(DrawPanel plane, Consumer<Snapshot> view) {
+		this.plane = plane;
+		this.view = view;
+		commands = new ConcurrentLinkedQueue<>();
+		latest = new AtomicReference<>();
+		deliveryPending = new AtomicBoolean();
+		state = State.IDLE;
+		stepMode = true;
+		plane.setCommandsPending(() -> !commands.isEmpty());
+		publish();
+		sortThread = new Thread(this::run, "sort");
+		sortThread.setDaemon(true);
+		sortThread.start();
+	}
+
+	/**
+	 * Queues a command for the sort thread, never blocks
+	 *
+	 * @param command the command
+	 */
+	public void post(Command command) {
+		commands.add(command);
+		LockSupport.unpark(sortThread);
+	}
+
+	/**
+	 * Queues a command without arguments for the sort thread, never blocks
+	 *
+	 * @param task the task
+	 */
+	public void post(Task task) {
+		post(new Command(task));
+	}
+
+	/**
+	 * Runs an action on the sort thread between steps, for anything that touches
+	 * the rectangles or the panel's graphics. Never blocks.
+	 *
+	 * @param action the action
+	 */
+	public void execute(Runnable action) {
+		post(new Command(Task.EXECUTE, 0, action));
+	}
+
+	/**
+	 * Returns the most recently published snapshot
+	 *
+	 * @return the latest snapshot
+	 */
+	public Snapshot getSnapshot() {
+		return latest.get();
+	}
+
+	/**
+	 * The sort thread, steps the sort while it is running and sleeps otherwise,
+	 * waking up early for every posted command
+	 */
+	private void run() {
+		long nextStep = 0;
+		while (true) {
+			Command command;
+			boolean changed = false;
+			while ((command = commands.poll()) != null) {
+				State before = state;
+				apply(command);
+				changed = true;
+				if (state == State.RUNNING && before != State.RUNNING)
+					nextStep = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(plane.getDelay());
+			}
+			if (state == State.RUNNING) {
+				long wait = nextStep - System.nanoTime();
+				if (wait > 0) {
+					if (changed)
+						publish();
+					long parked = System.nanoTime();
+					LockSupport.parkNanos(this, wait);
+					plane.paced(System.nanoTime() - parked);
+					continue;
+				}
+				step();
+				nextStep = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(plane.getDelay());
+				changed |= state != State.RUNNING;
+			}
+			if (changed)
+				publish();
+			if (state != State.RUNNING && commands.isEmpty()) {
+				// the idle time is not part of any batch of steps
+				plane.commitBatch();
+				LockSupport.park(this);
+			}
+		}
+	}
+
+	/**
+	 * Applies one command, commands that make no sense in the current state are
+	 * ignored so rapid clicking cannot break the state machine
+	 *
+	 * @param command the command
+	 */
+	private void apply(Command command) {
+		switch (command.task()) {
+		case START:
+			if (state != State.IDLE || plane.getCount() < 2)
+				return;
+			plane.performTask((Task) command.data());
+			state = stepMode ? State.PAUSED : State.RUNNING;
+			finishIfDone();
+			return;
+		case PAUSE:
+			if (state == State.RUNNING)
+				state = State.PAUSED;
+			return;
+		case RESUME:
+			if (state == State.PAUSED)
+				state = State.RUNNING;
+			return;
+		case NEXTSTEP:
+			if (state == State.PAUSED)
+				step();
+			return;
+		case STEPMODE:
+			if (state == State.IDLE)
+				stepMode = !stepMode;
+			return;
+		case DELAY:
+			plane.setDelay(command.argument());
+			return;
+		case RESIZE:
+			reset();
+			plane.setSize(command.argument());
+			return;
+		case LOAD:
+			reset();
+			try {
+				int loaded = plane.load((DataSet) command.data(), command.argument() == 1);
+				DataSet data = (DataSet) command.data();
+				if (loaded < data.size())
+					message = "Loaded an evenly spaced sample of " + loaded + " of " + data.size() + " records";
+				if (data.totalRecords() > data.size())
+					message = (message == null ? "" : message + ", ") + "only the first " + data.size() + " of the "
+							+ data.totalRecords() + " records in the file can be read";
+			} catch (IllegalArgumentException e) {
+				message = e.getMessage();
+			}
+			return;
+		case EXECUTE:
+			((Runnable) command.data()).run();
+			return;
+		case PERMUTE:
+		case BUILDASCENDING:
+		case BUILDDESCENDING:
+		case BUILDSKEWED:
+			reset();
+			plane.performTask(command.task());
+			return;
+		default:
+			// selecting a sort without starting it is done through START
+			return;
+		}
+	}
+
+	/**
+	 * Ends the current sort, the next sort starts in step by step mode
+	 */
+	private void reset() {
+		plane.killSort();
+		state = State.IDLE;
+		stepMode = true;
+	}
+
+	/**
+	 * Performs one step of the sort
+	 */
+	private void step() {
+		plane.performTask(Task.NEXTSTEP);
+		finishIfDone();
+	}
+
+	private void finishIfDone() {
+		if (!plane.hasNextStep()) {
+			state = State.FINISHED;
+			// a sort over its allocation budget is ended early
+			AllocationTracker tracker = plane.getAllocationTracker();
+			if (tracker != null && tracker.getFailure() != null)
+				message = tracker.getFailure();
+		}
+	}
+
+	/**
+	 * Publishes a snapshot of the current state and delivers it on the EDT,
+	 * coalescing deliveries so a slow EDT only ever sees the latest snapshot
+	 */
+	private void publish() {
+		latest.set(new Snapshot(state, stepMode, plane.getDelay(), plane.getCount(), message));
+		message = null;
+		if (deliveryPending.compareAndSet(false, true)) {
+			SwingUtilities.invokeLater(() -> {
+				deliveryPending.set(false);
+				view.accept(latest.get());
+			});
+		}
+	}
+}
@@ -6,9 +6,19 @@ import java.awt.Dimension;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
 import javax.swing.JFormattedTextField;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -17,6 +27,12 @@ import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.text.NumberFormatter;
 
 import sortVisualizer.DrawPanel.Task;
@@ -35,12 +51,25 @@ public class SortFrame extends JFrame implements ActionListener {
 	private JButton stepThrough;
 	private String currentSort = "bubbleSort";
 	private JMenu sortMenu;
+	private JMenu toolsMenu;
+	private JMenuItem streamItem;
+	private SortStreamServer streamServer;
 	
 	private JButton setSize;
 	private JButton setDelay;
 	private DrawPanel plane;
+	private SortController controller;
+	private SortednessTracker tracker;
+	private JProgressBar progressBar;
+	private JLabel metrics;
 	private JCheckBox[] checkBoxes = null;
 	public static final int MAXRECTANGLES = 100;
+	public static final String[] SORTNAMES = { "quickSort", "shellSort", "mergeSort", "insertionSort",
+			"bubbleSort", "selectionSort", "bitonicSort", "oddEvenMergeSort", "sampleSort", "powerSort",
+			"quickSelect", "introSelect", "heapTopK", "msdRadixSort", "multikeyQuickSort", "binaryInsertionSort",
+			"mergeInsertionSort", "cycleSort", "branchlessLomutoSort", "blockQuickSort" };
+	public static final List<String> PARTIALSORTS = List.of("quickSelect", "introSelect", "heapTopK");
+	public static final String STREAMNAME = "streamIngest";
 	
 	/**
 	 * Builds the GUI for the SortVisualizer
@@ -49,6 +78,11 @@ public class SortFrame extends JFrame implements ActionListener {
 		this.setDefaultCloseOperation(EXIT_ON_CLOSE);
 		plane = new DrawPanel();
 		plane.setBackground(Color.WHITE);
+		try {
+			plane.setTuning(TuningProfile.load(TuningProfile.DEFAULTPATH));
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
 		JPanel topPanel = new JPanel();
 		topPanel.setLayout(new BorderLayout());
 		JPanel panelForGraph = new JPanel();
@@ -57,17 +91,7 @@ public class SortFrame extends JFrame implements ActionListener {
 		stepThrough = new JButton();
 		stepThrough.addActionListener(this);
 		startSort = new JButton();
-		//startSort's actionListener in a new thread so sorting
-		//can be paused and resumed.
-		startSort.addActionListener((e) -> {
-			if (!startSort.getText().equals("Pause")) {
-				(new Thread(() -> actionPerformed(e))).start();
-				return;
-			}
-			startSort.setText("Resume");
-			stepThrough.setEnabled(true);
-			plane.performTask(Task.TOGGLEPAUSE);
-		});
+		startSort.addActionListener(this);
 		startSort.setText("Start Sorting");
 		stepThrough.setText("Disable Step by Step");
 		JPanel bottomButtonPanel = new JPanel();
@@ -78,16 +102,70 @@ public class SortFrame extends JFrame implements ActionListener {
 		JMenuBar menuBar = new JMenuBar();
 		sortMenu = new JMenu();
 		sortMenu.setText("bubbleSort");
-		JMenuItem[] sortList = new JMenuItem[] { new JMenuItem("quickSort"), 
-				new JMenuItem("shellSort"), new JMenuItem("mergeSort"), 
-				new JMenuItem("insertionSort"), new JMenuItem("bubbleSort"),
-				new JMenuItem("selectionSort") };
-		for (JMenuItem item : sortList) {
+		for (String sortName : SORTNAMES) {
+			JMenuItem item = new JMenuItem(sortName);
 			sortMenu.add(item);
 			item.addActionListener(this);
 		}
+		//the stream never finishes, so it is kept out of SORTNAMES which the
+		//tools run to completion
+		sortMenu.addSeparator();
+		JMenuItem streamIngest = new JMenuItem(STREAMNAME);
+		sortMenu.add(streamIngest);
+		streamIngest.addActionListener(this);
 		menuBar.add(sortMenu);
 		
+		//tool items get their own listeners since every JMenuItem
+		//handled by actionPerformed selects a sort
+		toolsMenu = new JMenu();
+		toolsMenu.setText("Tools");
+		JMenuItem estimate = new JMenuItem("Estimate Complexity");
+		estimate.addActionListener((e) -> estimateComplexity());
+		toolsMenu.add(estimate);
+		JMenuItem cacheSim = new JMenuItem("Cache Simulation");
+		cacheSim.addActionListener((e) -> simulateCache());
+		toolsMenu.add(cacheSim);
+		JMenuItem externalSort = new JMenuItem("External Sort");
+		externalSort.addActionListener((e) -> externalSort());
+		toolsMenu.add(externalSort);
+		JMenuItem loadData = new JMenuItem("Load Data");
+		loadData.addActionListener((e) -> loadData());
+		toolsMenu.add(loadData);
+		JMenuItem networkSpeedup = new JMenuItem("Sorting Network Speedup");
+		networkSpeedup.addActionListener((e) -> networkSpeedup());
+		toolsMenu.add(networkSpeedup);
+		JMenuItem sampleSort = new JMenuItem("Sample Sort Workers");
+		sampleSort.addActionListener((e) -> sampleSortWorkers());
+		toolsMenu.add(sampleSort);
+		JMenuItem costModel = new JMenuItem("Cost Model");
+		costModel.addActionListener((e) -> costModel());
+		toolsMenu.add(costModel);
+		JMenuItem autoTune = new JMenuItem("Auto-Tune");
+		autoTune.addActionListener((e) -> autoTune());
+		toolsMenu.add(autoTune);
+		JMenuItem allocationBudget = new JMenuItem("Allocation Budget");
+		allocationBudget.addActionListener((e) -> allocationBudget());
+		toolsMenu.add(allocationBudget);
+		JMenuItem partitionBenchmark = new JMenuItem("Partition Benchmark");
+		partitionBenchmark.addActionListener((e) -> partitionBenchmark());
+		toolsMenu.add(partitionBenchmark);
+		JMenuItem compareStrings = new JMenuItem("Compare String Sorts");
+		compareStrings.addActionListener((e) -> compareStringSorts());
+		toolsMenu.add(compareStrings);
+		JMenuItem streamSettings = new JMenuItem("Stream Settings");
+		streamSettings.addActionListener((e) -> streamSettings());
+		toolsMenu.add(streamSettings);
+		JMenuItem selectionK = new JMenuItem("Selection k");
+		selectionK.addActionListener((e) -> selectionK());
+		toolsMenu.add(selectionK);
+		JMenuItem compareSelection = new JMenuItem("Compare Selection");
+		compareSelection.addActionListener((e) -> compareSelection());
+		toolsMenu.add(compareSelection);
+		streamItem = new JMenuItem("Stream to Browser");
+		streamItem.addActionListener((e) -> toggleStreaming());
+		toolsMenu.add(streamItem);
+		menuBar.add(toolsMenu);
+		
 		JLabel selected = new JLabel("Current Sort:");
 		
 		setSize = new JButton();
@@ -109,7 +187,20 @@ public class SortFrame extends JFrame implements ActionListener {
 		p.add(setSize);
 		p.add(new JLabel("   "));
 		p.add(setDelay);
-		topPanel.add(bottomButtonPanel, BorderLayout.SOUTH);
+		
+		//live sortedness metrics, refreshed on the EDT while the sort runs
+		//on its own thread
+		tracker = new SortednessTracker(plane);
+		progressBar = new JProgressBar(0, 1000);
+		progressBar.setStringPainted(true);
+		metrics = new JLabel();
+		JPanel metricsPanel = new JPanel(new BorderLayout());
+		metricsPanel.add(metrics, BorderLayout.CENTER);
+		metricsPanel.add(progressBar, BorderLayout.EAST);
+		JPanel southPanel = new JPanel(new BorderLayout());
+		southPanel.add(metricsPanel, BorderLayout.NORTH);
+		southPanel.add(bottomButtonPanel, BorderLayout.SOUTH);
+		topPanel.add(southPanel, BorderLayout.SOUTH);
 		topPanel.add(plane, BorderLayout.CENTER);
 		plane.setSize(250, 250);
 		topPanel.add(p, BorderLayout.NORTH);
@@ -118,7 +209,31 @@ public class SortFrame extends JFrame implements ActionListener {
 		this.setContentPane(topPanel);
 		this.pack();
 		plane.setGraphics();
+		//the sort thread owns the panel from here on, everything that
+		//changes it is posted to the controller
+		controller = new SortController(plane, this::showState);
+		(new Timer(100, (e) -> updateMetrics())).start();
+
+	}
 
+	/**
+	 * Shows the current sortedness metrics and the progress of the current sort
+	 */
+	private void updateMetrics() {
+		long left = tracker.getEstimatedMillisLeft();
+		AllocationTracker allocations = plane.getAllocationTracker();
+		metrics.setText(String.format(" inversions: %d   runs: %d   longest increasing: %d   ETA: %s",
+				tracker.getInversions(), tracker.getRuns(), tracker.getLongestSubsequence(),
+				left < 0 ? "-" : String.format("%.1fs", left / 1000.0))
+				+ (plane.getCostModel() == CostModel.UNIT ? ""
+						: String.format("   weighted cost: %.0f", plane.getWeightedCost()))
+				+ (allocations == null ? ""
+						: String.format("   allocated: %d B (max %d B/step)", allocations.getBytes(),
+								allocations.getMaxStepBytes()))
+				+ (plane.getStatus().isEmpty() ? "" : "   " + plane.getStatus()));
+		double progress = tracker.getProgress();
+		progressBar.setValue((int) (1000 * progress));
+		progressBar.setString(tracker.getInversions() == 0 ? "sorted" : String.format("%.1f%%", 100 * progress));
 	}
 	
 	@Override
@@ -147,94 +262,728 @@ public class SortFrame extends JFrame implements ActionListener {
 			changeDelay();
 			return;
 		}
-		//logic to change text on the bottom two buttons depending
-		//on the current state of the program
-		JButton newE = (JButton) e.getSource();
-		if (newE.equals(stepThrough)) {
-			if (stepThrough.getText().equals("Enable Step by Step")) {
-				plane.performTask(Task.TOGGLEPAUSE);
-				stepThrough.setText("Disable Step by Step");
-			} else if (stepThrough.getText().equals("Disable Step by Step")) {
-				stepThrough.setText("Enable Step by Step");
-				plane.performTask(Task.TOGGLEPAUSE);
-			} else {
-				if (!plane.hasNextStep()) {
-					stepThrough.setEnabled(false);
-					startSort.setEnabled(false);
-					stepThrough.setText("Sorting finished... regenerate list to restart");
-					startSort.setText("Sorting finished... regenerate list to restart");
-				} else {
-					plane.performTask(Task.NEXTSTEP);
-				}
+		//what the bottom two buttons do depends on the state of the
+		//sort thread, not on their labels
+		SortController.Snapshot snapshot = controller.getSnapshot();
+		if (e.getSource().equals(stepThrough)) {
+			switch (snapshot.state()) {
+			case IDLE -> controller.post(Task.STEPMODE);
+			case PAUSED -> controller.post(Task.NEXTSTEP);
+			default -> {
+			}
 			}
 			return;
-		} 
-		
-		if (newE.equals(startSort)) {
-			if (startSort.getText().equals("Pause")) {
-				startSort.setText("Resume");
-				stepThrough.setEnabled(true);
-				plane.performTask(Task.TOGGLEPAUSE);
-			} else if (startSort.getText().equals("Resume")) {
-				startSort.setText("Pause");
-				stepThrough.setEnabled(false);
-				plane.performTask(Task.TOGGLEPAUSE);
-				if (plane.sort()) {
-					stepThrough.setEnabled(false);
-					startSort.setEnabled(false);
-					stepThrough.setText("Sorting finished... regenerate list to restart");
-					startSort.setText("Sorting finished... regenerate list to restart");
+		}
+		if (e.getSource().equals(startSort)) {
+			switch (snapshot.state()) {
+			case IDLE -> controller.post(new SortController.Command(Task.START, 0, sortTask(currentSort)));
+			case RUNNING -> controller.post(Task.PAUSE);
+			case PAUSED -> controller.post(Task.RESUME);
+			default -> {
+			}
+			}
+		}
+	}
+
+	/**
+	 * Updates the bottom two buttons to match a snapshot of the sort thread's
+	 * state, called on the EDT
+	 * 
+	 * @param snapshot the latest state
+	 */
+	private void showState(SortController.Snapshot snapshot) {
+		switch (snapshot.state()) {
+		case IDLE:
+			startSort.setText("Start Sorting");
+			stepThrough.setText(snapshot.stepMode() ? "Disable Step by Step" : "Enable Step by Step");
+			startSort.setEnabled(true);
+			stepThrough.setEnabled(true);
+			break;
+		case RUNNING:
+			startSort.setText("Pause");
+			stepThrough.setText("Next Step");
+			startSort.setEnabled(true);
+			stepThrough.setEnabled(false);
+			break;
+		case PAUSED:
+			startSort.setText("Resume");
+			stepThrough.setText("Next Step");
+			startSort.setEnabled(true);
+			stepThrough.setEnabled(true);
+			break;
+		case FINISHED:
+			startSort.setText("Sorting finished... regenerate list to restart");
+			stepThrough.setText("Sorting finished... regenerate list to restart");
+			startSort.setEnabled(false);
+			stepThrough.setEnabled(false);
+			break;
+		}
+		if (snapshot.message() != null)
+			JOptionPane.showMessageDialog(this, snapshot.message(), "Sort Visualizer", JOptionPane.INFORMATION_MESSAGE);
+	}
+
+	/**
+	 * Returns the task that selects the sort with the given menu name
+	 * 
+	 * @param sortName the name of the sort as shown in the sort menu
+	 * @return the task that selects that sort
+	 */
+	public static Task sortTask(String sortName) {
+		switch (sortName) {
+		case "selectionSort":
+			return Task.SELECTION;
+		case "quickSort":
+			return Task.QUICK;
+		case "mergeSort":
+			return Task.MERGE;
+		case "shellSort":
+			return Task.SHELL;
+		case "insertionSort":
+			return Task.INSERTION;
+		case "bitonicSort":
+			return Task.BITONIC;
+		case "oddEvenMergeSort":
+			return Task.ODDEVENMERGE;
+		case "sampleSort":
+			return Task.SAMPLESORT;
+		case "powerSort":
+			return Task.POWER;
+		case "quickSelect":
+			return Task.QUICKSELECT;
+		case "introSelect":
+			return Task.INTROSELECT;
+		case "heapTopK":
+			return Task.TOPK;
+		case "msdRadixSort":
+			return Task.MSDRADIX;
+		case "multikeyQuickSort":
+			return Task.MULTIKEYQUICK;
+		case "binaryInsertionSort":
+			return Task.BINARYINSERTION;
+		case "mergeInsertionSort":
+			return Task.MERGEINSERTION;
+		case "cycleSort":
+			return Task.CYCLE;
+		case "branchlessLomutoSort":
+			return Task.BRANCHLESSLOMUTO;
+		case "blockQuickSort":
+			return Task.BLOCKQUICK;
+		case STREAMNAME:
+			return Task.STREAM;
+		default:
+			return Task.BUBBLE;
+		}
+	}
+
+	/**
+	 * Used when the estimate complexity menu item is clicked. Measures the
+	 * currently selected sort off screen and shows the measured and fitted growth
+	 * curves.
+	 */
+	private void estimateComplexity() {
+		String sortName = currentSort;
+		if (sortName.equals(STREAMNAME)) {
+			JOptionPane.showMessageDialog(this, "The stream never finishes, select a sort to estimate",
+					"Estimate Complexity", JOptionPane.INFORMATION_MESSAGE);
+			return;
+		}
+		(new Thread(() -> {
+			ComplexityEstimator.Fit[] fits = (new ComplexityEstimator()).estimate(sortTask(sortName));
+			SwingUtilities.invokeLater(() -> {
+				JPanel graphs = new JPanel(new GridLayout(1, 2));
+				graphs.add(new GrowthPanel("operations", fits[0]));
+				graphs.add(new GrowthPanel("nanoseconds", fits[1]));
+				JOptionPane.showMessageDialog(this, graphs, sortName + " growth", JOptionPane.PLAIN_MESSAGE);
+			});
+		})).start();
+	}
+
+	/**
+	 * Used when the cache simulation menu item is clicked. Prompts the user for a
+	 * cache configuration, optionally shows a live heat map of the misses of the
+	 * current sort and reports the hit rates of every sort off screen.
+	 */
+	private void simulateCache() {
+		JFormattedTextField lineField = intField(64, 4096);
+		JFormattedTextField waysField = intField(4, 64);
+		JFormattedTextField l1Field = intField(1024, 1 << 24);
+		JFormattedTextField l2Field = intField(8192, 1 << 26);
+		JFormattedTextField elementField = intField(16, 4096);
+		JFormattedTextField sizeField = intField(1024, 1 << 16);
+		JCheckBox live = new JCheckBox();
+		live.setSelected(true);
+		Object[] inputField = { "Line size (bytes): ", lineField, "Associativity: ", waysField,
+				"L1 capacity (bytes): ", l1Field, "L2 capacity (bytes): ", l2Field, "Element size (bytes): ",
+				elementField, "Report list size: ", sizeField, "Show live heat map? ", live };
+		int option = JOptionPane.showConfirmDialog(this, inputField, "Cache Simulation", JOptionPane.OK_CANCEL_OPTION,
+				JOptionPane.PLAIN_MESSAGE);
+		if (option != JOptionPane.OK_OPTION)
+			return;
+		int line = (Integer) lineField.getValue();
+		int ways = (Integer) waysField.getValue();
+		int l1 = (Integer) l1Field.getValue();
+		int l2 = (Integer) l2Field.getValue();
+		int element = (Integer) elementField.getValue();
+		int size = Math.max(2, (Integer) sizeField.getValue());
+		try {
+			CacheSimulator simulator = live.isSelected() ? new CacheSimulator(line, ways, l1, l2, element) : null;
+			controller.execute(() -> plane.setCacheSimulator(simulator));
+		} catch (IllegalArgumentException ex) {
+			JOptionPane.showMessageDialog(this, ex.getMessage(), "Cache Simulation", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		(new Thread(() -> {
+			DrawPanel offScreen = DrawPanel.offScreen(size);
+			CacheSimulator cache = new CacheSimulator(line, ways, l1, l2, element);
+			String[] columns = { "sort", "accesses", "L1 hit %", "L2 hit %", "memory accesses" };
+			Object[][] rows = new Object[SORTNAMES.length][];
+			for (int i = 0; i < SORTNAMES.length; i++) {
+				offScreen.setSize(size);
+				offScreen.performTask(Task.PERMUTE);
+				offScreen.setCacheSimulator(cache);
+				cache.reset();
+				offScreen.performTask(sortTask(SORTNAMES[i]));
+				offScreen.performTask(Task.TOGGLEPAUSE);
+				offScreen.sort();
+				offScreen.killSort();
+				offScreen.setCacheSimulator(null);
+				rows[i] = new Object[] { SORTNAMES[i], cache.getAccesses(),
+						String.format("%.2f", 100 * cache.getL1HitRate()),
+						String.format("%.2f", 100 * cache.getL2HitRate()), cache.getMemoryAccesses() };
+			}
+			SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+					new JScrollPane(new JTable(rows, columns)), "Cache Simulation (n=" + size + ")",
+					JOptionPane.PLAIN_MESSAGE));
+		})).start();
+	}
+
+	/**
+	 * Used when the external sort menu item is clicked. Prompts the user for a
+	 * file of longs (or generates a random one), a run size and a fan-in, then
+	 * sorts the file externally while drawing the runs and merge passes.
+	 */
+	private void externalSort() {
+		JTextField fileField = new JTextField();
+		JFormattedTextField countField = intField(4_000_000, Integer.MAX_VALUE);
+		JFormattedTextField runField = intField(1 << 18, Integer.MAX_VALUE);
+		JFormattedTextField fanInField = intField(8, 1024);
+		Object[] inputField = { "File of longs (blank to generate): ", fileField, "Longs to generate: ", countField,
+				"Run size (longs): ", runField, "Fan-in: ", fanInField };
+		int option = JOptionPane.showConfirmDialog(this, inputField, "External Sort", JOptionPane.OK_CANCEL_OPTION,
+				JOptionPane.PLAIN_MESSAGE);
+		if (option != JOptionPane.OK_OPTION)
+			return;
+		int runSize = (Integer) runField.getValue();
+		int fanIn = Math.max(2, (Integer) fanInField.getValue());
+		int count = (Integer) countField.getValue();
+		String file = fileField.getText().strip();
+		(new Thread(() -> {
+			JLabel result = new JLabel();
+			try {
+				Path input = file.isEmpty() ? Files.createTempFile("extsort", ".bin") : Path.of(file);
+				try {
+					if (file.isEmpty())
+						ExternalSorter.writeRandom(input, count);
+					ExternalSortPanel bands = new ExternalSortPanel(Files.size(input) / Long.BYTES);
+					result.setText("Sorting " + input + "...");
+					SwingUtilities.invokeLater(() -> {
+						JDialog dialog = new JDialog(this, "External Sort");
+						dialog.add(bands, BorderLayout.CENTER);
+						dialog.add(result, BorderLayout.SOUTH);
+						dialog.pack();
+						dialog.setVisible(true);
+					});
+					ExternalSorter sorter = new ExternalSorter(runSize, fanIn, bands);
+					Path output = input.resolveSibling(input.getFileName() + ".sorted");
+					long start = System.nanoTime();
+					int passes = sorter.sort(input, output);
+					long millis = (System.nanoTime() - start) / 1_000_000;
+					SwingUtilities.invokeLater(() -> result.setText(String.format(
+							"%d merge passes in %d ms, %d MB read, %d MB written -> %s", passes, millis,
+							sorter.getBytesRead() >> 20, sorter.getBytesWritten() >> 20, output)));
+				} finally {
+					// a generated input is only needed for this sort, even a failed one
+					if (file.isEmpty())
+						Files.deleteIfExists(input);
 				}
-			} else {
-				boolean beginSort = startSort.getText().equals("Start Sorting");
-				stepThrough.setText("Next Step");
-				stepThrough.setEnabled(plane.isPaused());
-				if (plane.isPaused()) {
-					startSort.setText("Resume");
-				} else {
-					startSort.setText("Pause");
+			} catch (IOException | RuntimeException | OutOfMemoryError ex) {
+				SwingUtilities.invokeLater(() -> {
+					result.setText("Failed: " + ex.getMessage());
+					JOptionPane.showMessageDialog(this, ex.getMessage(), "External Sort", JOptionPane.ERROR_MESSAGE);
+				});
+			}
+		})).start();
+	}
+
+	/**
+	 * Used when the sorting network speedup menu item is clicked. Times both
+	 * sorting networks on a large random array with one thread and with every
+	 * core, next to Arrays.sort. The networks generate their comparators as they
+	 * run, so only the array and a copy are held.
+	 */
+	private void networkSpeedup() {
+		(new Thread(() -> {
+			StringBuilder report = new StringBuilder();
+			int messageType = JOptionPane.PLAIN_MESSAGE;
+			try {
+				int n = 1 << 20;
+				int[] data = (new Random()).ints(n).toArray();
+				report.append("n = " + n + ", " + Runtime.getRuntime().availableProcessors() + " cores\n");
+				int[] copy = data.clone();
+				long start = System.nanoTime();
+				Arrays.sort(copy);
+				report.append(String.format("Arrays.sort: %d ms%n", (System.nanoTime() - start) / 1_000_000));
+				String[] names = { "bitonic", "odd-even merge" };
+				SortingNetworks.Network[] networks = SortingNetworks.Network.values();
+				for (int i = 0; i < names.length; i++) {
+					System.arraycopy(data, 0, copy, 0, n);
+					start = System.nanoTime();
+					int layers = SortingNetworks.sort(copy, networks[i], false);
+					long sequential = System.nanoTime() - start;
+					System.arraycopy(data, 0, copy, 0, n);
+					start = System.nanoTime();
+					SortingNetworks.sort(copy, networks[i], true);
+					long parallel = System.nanoTime() - start;
+					report.append(String.format("%s (%d layers): %d ms sequential, %d ms parallel, %.2fx%n", names[i],
+							layers, sequential / 1_000_000, parallel / 1_000_000, sequential / (double) parallel));
 				}
-				
-				if (beginSort) {
-					switch (currentSort) {
-					case "selectionSort": {
-						plane.performTask(Task.SELECTION);
-						break;
-					}
-					case "quickSort": {
-						plane.performTask(Task.QUICK);
-						break;
-					}
-					case "mergeSort": {
-						plane.performTask(Task.MERGE);
-						break;
-					}
-					case "shellSort": {
-						plane.performTask(Task.SHELL);
-						break;
-					}
-					case "insertionSort": {
-						plane.performTask(Task.INSERTION);
-						break;
-					}
-					case "bubbleSort": {
-						plane.performTask(Task.BUBBLE);
-						break;
-					}
-					}
+			} catch (RuntimeException | OutOfMemoryError ex) {
+				report.append("Failed: " + ex);
+				messageType = JOptionPane.ERROR_MESSAGE;
+			}
+			int type = messageType;
+			SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, report.toString(),
+					"Sorting Network Speedup", type));
+		})).start();
+	}
+
+	/**
+	 * Used when the sample sort workers menu item is clicked. Sets how many
+	 * workers the next sample sort uses and how many samples they take.
+	 */
+	private void sampleSortWorkers() {
+		JFormattedTextField workersField = intField(4, 8);
+		JFormattedTextField samplesField = intField(2, 64);
+		Object[] inputFields = { "Workers: ", workersField, "Samples per splitter per worker: ", samplesField };
+		int option = JOptionPane.showConfirmDialog(this, inputFields, "Sample Sort Workers",
+				JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+		if (option == JOptionPane.OK_OPTION)
+			plane.setSampleSort((Integer) workersField.getValue(), (Integer) samplesField.getValue());
+	}
+
+	/**
+	 * Used when the cost model menu item is clicked. Prompts the user for the
+	 * weights of comparisons and writes and how much slower they really are, uses
+	 * them for the sorts on screen and reports the weighted cost of every sort off
+	 * screen, cheapest first.
+	 */
+	private void costModel() {
+		CostModel current = plane.getCostModel();
+		JTextField compareField = new JTextField(String.valueOf(current.getCompareWeight()));
+		JTextField writeField = new JTextField(String.valueOf(current.getWriteWeight()));
+		JTextField spinField = new JTextField(String.valueOf(current.getCompareNanos() / 1000));
+		JTextField payloadField = new JTextField(String.valueOf(current.getPayloadBytes()));
+		JFormattedTextField sizeField = intField(256, 1 << 14);
+		Object[] inputField = { "Comparison weight: ", compareField, "Write weight: ", writeField,
+				"Microseconds each comparison spins: ", spinField, "Payload bytes copied by each write: ",
+				payloadField, "Report list size: ", sizeField };
+		int option = JOptionPane.showConfirmDialog(this, inputField, "Cost Model", JOptionPane.OK_CANCEL_OPTION,
+				JOptionPane.PLAIN_MESSAGE);
+		if (option != JOptionPane.OK_OPTION)
+			return;
+		double compareWeight;
+		double writeWeight;
+		long spinNanos;
+		int payload;
+		try {
+			compareWeight = Double.parseDouble(compareField.getText().strip());
+			writeWeight = Double.parseDouble(writeField.getText().strip());
+			spinNanos = 1000 * Long.parseLong(spinField.getText().strip());
+			payload = Integer.parseInt(payloadField.getText().strip());
+			plane.setCostModel(new CostModel(compareWeight, writeWeight, spinNanos, payload));
+		} catch (IllegalArgumentException ex) {
+			JOptionPane.showMessageDialog(this, "Enter non negative numbers", "Cost Model", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		int size = Math.max(2, (Integer) sizeField.getValue());
+		(new Thread(() -> {
+			DrawPanel offScreen = DrawPanel.offScreen(size);
+			offScreen.setCostModel(new CostModel(compareWeight, writeWeight, spinNanos, payload));
+			long seed = new Random().nextLong();
+			List<Object[]> rows = new ArrayList<>();
+			for (String sortName : SORTNAMES) {
+				if (PARTIALSORTS.contains(sortName))
+					continue;
+				offScreen.setSize(size);
+				offScreen.permute(seed);
+				offScreen.resetCounts();
+				long start = System.nanoTime();
+				offScreen.performTask(sortTask(sortName));
+				offScreen.performTask(Task.TOGGLEPAUSE);
+				offScreen.sort();
+				offScreen.killSort();
+				rows.add(new Object[] { sortName, offScreen.getComparisons(), offScreen.getWrites(),
+						String.format("%.0f", offScreen.getWeightedCost()), offScreen.getWeightedCost(),
+						(System.nanoTime() - start) / 1_000_000 });
+			}
+			rows.sort((a, b) -> Double.compare((Double) a[4], (Double) b[4]));
+			Object[][] table = new Object[rows.size()][];
+			for (int i = 0; i < table.length; i++) {
+				Object[] row = rows.get(i);
+				table[i] = new Object[] { row[0], row[1], row[2], row[3], row[5] };
+			}
+			String[] columns = { "sort", "comparisons", "writes", "weighted cost", "ms" };
+			SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+					new JScrollPane(new JTable(table, columns)), "Cost Model (n=" + size + ")",
+					JOptionPane.PLAIN_MESSAGE));
+		})).start();
+	}
+
+	/**
+	 * Used when the auto-tune menu item is clicked. Times the hybrid parameters of
+	 * ShellSort, QuickSort and MergeSort on this machine, uses the fastest ones
+	 * and saves them so they are loaded at the next startup.
+	 */
+	private void autoTune() {
+		TuningProfile current = plane.getTuning();
+		int option = JOptionPane.showConfirmDialog(this,
+				"Current profile: " + current + "\nTuning times every candidate on lists of up to "
+						+ AutoTuner.SIZES[AutoTuner.SIZES.length - 1] + " ints and can take a minute.",
+				"Auto-Tune", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+		if (option != JOptionPane.OK_OPTION)
+			return;
+		(new Thread(() -> {
+			AutoTuner tuner = new AutoTuner();
+			TuningProfile profile = tuner.tune();
+			plane.setTuning(profile);
+			String saved;
+			try {
+				profile.save(TuningProfile.DEFAULTPATH);
+				saved = "Saved to " + TuningProfile.DEFAULTPATH;
+			} catch (IOException ex) {
+				saved = "Could not save: " + ex.getMessage();
+			}
+			String message = "Scores relative to the fastest candidate, lower is better\n" + tuner.getReport()
+					+ "\nquickSort cutoff: " + profile.quickCutoff() + ", pivot sample: " + profile.pivotSample()
+					+ "\nmergeSort cutoff: " + profile.mergeCutoff() + "\nshellSort gaps: " + profile.shellGaps()
+					+ "\n" + saved;
+			SwingUtilities.invokeLater(
+					() -> JOptionPane.showMessageDialog(this, message, "Auto-Tune", JOptionPane.PLAIN_MESSAGE));
+		})).start();
+	}
+
+	/**
+	 * Used when the allocation budget menu item is clicked. Prompts the user for
+	 * the most bytes a step may allocate, measures the sorts on screen against it
+	 * and reports the bytes every sort allocates per run and per step off screen.
+	 */
+	private void allocationBudget() {
+		if (!AllocationTracker.isSupported()) {
+			JOptionPane.showMessageDialog(this, "This JVM cannot measure the allocations of a thread",
+					"Allocation Budget", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		AllocationTracker current = plane.getAllocationTracker();
+		JCheckBox trackBox = new JCheckBox("Track the sorts on screen", true);
+		JTextField budgetField = new JTextField(String.valueOf(current == null ? 0 : current.getBudget()));
+		JFormattedTextField sizeField = intField(1024, 1 << 14);
+		Object[] inputField = { trackBox, "Bytes a step may allocate (0 for no limit): ", budgetField,
+				"Report list size: ", sizeField };
+		int option = JOptionPane.showConfirmDialog(this, inputField, "Allocation Budget",
+				JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+		if (option != JOptionPane.OK_OPTION)
+			return;
+		long budget;
+		try {
+			budget = Long.parseLong(budgetField.getText().strip());
+			plane.setAllocationTracker(trackBox.isSelected() ? new AllocationTracker(budget) : null);
+		} catch (IllegalArgumentException ex) {
+			JOptionPane.showMessageDialog(this, "Enter a non negative number of bytes", "Allocation Budget",
+					JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		int size = Math.max(2, (Integer) sizeField.getValue());
+		(new Thread(() -> {
+			DrawPanel offScreen = DrawPanel.offScreen(size);
+			AllocationTracker allocations = new AllocationTracker(budget);
+			long seed = new Random().nextLong();
+			Object[][] rows = new Object[SORTNAMES.length][];
+			for (int i = 0; i < SORTNAMES.length; i++) {
+				//the first run loads and links the sort's classes, which
+				//would be counted against its first steps
+				for (AllocationTracker measured : Arrays.asList(null, allocations)) {
+					offScreen.setSize(size);
+					offScreen.permute(seed);
+					offScreen.setAllocationTracker(measured);
+					offScreen.performTask(sortTask(SORTNAMES[i]));
+					offScreen.performTask(Task.TOGGLEPAUSE);
+					offScreen.sort();
+					offScreen.killSort();
 				}
-				if (!plane.isPaused())
-					startSort.setText("Pause");
-				if (plane.sort()) {
-					stepThrough.setEnabled(false);
-					startSort.setEnabled(false);
-					stepThrough.setText("Sorting finished... regenerate list to restart");
-					startSort.setText("Sorting finished... regenerate list to restart");
+				offScreen.setAllocationTracker(null);
+				long steps = Math.max(1, allocations.getSteps());
+				rows[i] = new Object[] { SORTNAMES[i], allocations.getSteps(), allocations.getBytes(),
+						allocations.getBytes() / steps, allocations.getMaxStepBytes(),
+						allocations.getFailure() == null ? "ok" : allocations.getFailure() };
+			}
+			String[] columns = { "sort", "steps", "bytes per run", "bytes per step", "max step bytes",
+					budget == 0 ? "result" : "result (budget " + budget + " B)" };
+			SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+					new JScrollPane(new JTable(rows, columns)), "Allocation Budget (n=" + size + ")",
+					JOptionPane.PLAIN_MESSAGE));
+		})).start();
+	}
+
+	/**
+	 * Used when the partition benchmark menu item is clicked. Counts the
+	 * comparisons and writes of quickSort and its branchless variants off screen
+	 * and times the same partitioning schemes on int arrays with balanced and
+	 * skewed pivots, so their real speed can be set against their counts.
+	 */
+	private void partitionBenchmark() {
+		JFormattedTextField sizeField = intField(1 << 20, 1 << 24);
+		JFormattedTextField countField = intField(1024, 1 << 14);
+		Object[] inputField = { "Timed int array size: ", sizeField, "Counted list size: ", countField };
+		int option = JOptionPane.showConfirmDialog(this, inputField, "Partition Benchmark",
+				JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+		if (option != JOptionPane.OK_OPTION)
+			return;
+		int size = Math.max(2, (Integer) sizeField.getValue());
+		int count = Math.max(2, (Integer) countField.getValue());
+		(new Thread(() -> {
+			long seed = new Random().nextLong();
+			double[] random = PartitionBenchmark.run(size, false, seed);
+			double[] skewed = PartitionBenchmark.run(size, true, seed);
+			DrawPanel offScreen = DrawPanel.offScreen(count);
+			String[] names = PartitionBenchmark.NAMES;
+			Object[][] rows = new Object[names.length][];
+			for (int i = 0; i < names.length; i++) {
+				offScreen.setSize(count);
+				offScreen.permute(seed);
+				offScreen.resetCounts();
+				offScreen.performTask(sortTask(names[i]));
+				offScreen.performTask(Task.TOGGLEPAUSE);
+				offScreen.sort();
+				offScreen.killSort();
+				rows[i] = new Object[] { names[i], offScreen.getComparisons(), offScreen.getWrites(),
+						String.format("%.2f", random[i]), String.format("%.2fx", random[0] / random[i]),
+						String.format("%.2f", skewed[i]), String.format("%.2fx", skewed[0] / skewed[i]) };
+			}
+			String[] columns = { "sort", "comparisons (n=" + count + ")", "writes", "random ns/element",
+					"random speedup", "skewed ns/element", "skewed speedup" };
+			SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+					new JScrollPane(new JTable(rows, columns)), "Partition Benchmark (n=" + size + ")",
+					JOptionPane.PLAIN_MESSAGE));
+		})).start();
+	}
+
+	/**
+	 * Used when the compare string sorts menu item is clicked. Loads the lines of
+	 * a text file, or generated URLs that share long prefixes, off screen and
+	 * compares the character accesses and running times of the string sorts with
+	 * the comparison sorts.
+	 */
+	private void compareStringSorts() {
+		JTextField fileField = new JTextField();
+		JFormattedTextField sizeField = intField(2048, 1 << 16);
+		Object[] inputField = { "Text file (blank for generated URLs): ", fileField, "Lines to sort: ", sizeField };
+		int option = JOptionPane.showConfirmDialog(this, inputField, "Compare String Sorts",
+				JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+		if (option != JOptionPane.OK_OPTION)
+			return;
+		int size = Math.max(2, (Integer) sizeField.getValue());
+		DataSet data;
+		try {
+			data = fileField.getText().isBlank() ? DataSet.strings(sampleUrls(size))
+					: DataSet.textLines(Path.of(fileField.getText().strip()));
+		} catch (IOException ex) {
+			JOptionPane.showMessageDialog(this, ex.getMessage(), "Compare String Sorts", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		String[] sorts = { "mergeSort", "quickSort", "powerSort", "msdRadixSort", "multikeyQuickSort" };
+		(new Thread(() -> {
+			DrawPanel offScreen = DrawPanel.offScreen(size);
+			String[] columns = { "sort", "character accesses", "comparisons", "writes", "ms" };
+			Object[][] rows = new Object[sorts.length][];
+			int lines = 0;
+			for (int i = 0; i < sorts.length; i++) {
+				try {
+					lines = offScreen.load(data, false);
+				} catch (IllegalArgumentException ex) {
+					SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, ex.getMessage(),
+							"Compare String Sorts", JOptionPane.ERROR_MESSAGE));
+					return;
 				}
+				offScreen.resetCounts();
+				long start = System.nanoTime();
+				offScreen.performTask(sortTask(sorts[i]));
+				offScreen.performTask(Task.TOGGLEPAUSE);
+				offScreen.sort();
+				offScreen.killSort();
+				rows[i] = new Object[] { sorts[i], offScreen.getCharAccesses(), offScreen.getComparisons(),
+						offScreen.getWrites(), (System.nanoTime() - start) / 1_000_000 };
 			}
+			String title = "Compare String Sorts (" + lines + " lines)";
+			SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+					new JScrollPane(new JTable(rows, columns)), title, JOptionPane.PLAIN_MESSAGE));
+		})).start();
+	}
+
+	/**
+	 * Generates URLs like the ones in access logs, which share long prefixes
+	 * 
+	 * @param count the number of URLs
+	 * @return the URLs
+	 */
+	private static String[] sampleUrls(int count) {
+		String[] hosts = { "https://www.example.com", "https://api.example.com", "https://static.example.com" };
+		String[] paths = { "/v2/customers/", "/v2/customers/orders/", "/v2/inventory/items/", "/assets/images/" };
+		Random random = new Random();
+		String[] urls = new String[count];
+		for (int i = 0; i < count; i++)
+			urls[i] = hosts[random.nextInt(hosts.length)] + paths[random.nextInt(paths.length)]
+					+ random.nextInt(100_000) + "?session=" + Integer.toHexString(random.nextInt(1 << 12));
+		return urls;
+	}
+
+	/**
+	 * Used when the stream settings menu item is clicked. Sets the structure,
+	 * arrival rate and retention window of the streamIngest mode, which starts
+	 * like any other sort.
+	 */
+	private void streamSettings() {
+		JComboBox<StreamIndex.Kind> kindBox = new JComboBox<>(StreamIndex.Kind.values());
+		JFormattedTextField rateField = intField(16, 1 << 16);
+		JFormattedTextField fanoutField = intField(16, 1024);
+		JFormattedTextField memtableField = intField(64, 1 << 20);
+		JFormattedTextField windowField = intField(1 << 16, 1 << 24);
+		Object[] inputFields = { "Structure: ", kindBox, "Keys arriving per step: ", rateField,
+				"B-tree fanout / LSM level size ratio: ", fanoutField, "LSM memtable size: ", memtableField,
+				"Newest keys kept: ", windowField };
+		int option = JOptionPane.showConfirmDialog(this, inputFields, "Stream Settings",
+				JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+		if (option == JOptionPane.OK_OPTION)
+			plane.setStream((StreamIndex.Kind) kindBox.getSelectedItem(), (Integer) rateField.getValue(),
+					(Integer) fanoutField.getValue(), (Integer) memtableField.getValue(),
+					(Integer) windowField.getValue());
+	}
+
+	/**
+	 * Used when the selection k menu item is clicked. Sets how many of the
+	 * smallest rectangles quickSelect, introSelect and heapTopK look for.
+	 */
+	private void selectionK() {
+		JFormattedTextField kField = intField(plane.getK(), MAXRECTANGLES);
+		Object[] inputField = { "k: ", kField };
+		int option = JOptionPane.showConfirmDialog(this, inputField, "Selection k", JOptionPane.OK_CANCEL_OPTION,
+				JOptionPane.PLAIN_MESSAGE);
+		if (option == JOptionPane.OK_OPTION)
+			plane.setK((Integer) kField.getValue());
+	}
+
+	/**
+	 * Used when the compare selection menu item is clicked. Counts the operations
+	 * of the selection sorts off screen at increasing sizes next to a full
+	 * quickSort on the same lists.
+	 */
+	private void compareSelection() {
+		JFormattedTextField kField = intField(plane.getK(), 1 << 16);
+		JFormattedTextField sizeField = intField(8192, 1 << 16);
+		Object[] inputField = { "k: ", kField, "Largest list size: ", sizeField };
+		int option = JOptionPane.showConfirmDialog(this, inputField, "Compare Selection",
+				JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+		if (option != JOptionPane.OK_OPTION)
+			return;
+		int k = (Integer) kField.getValue();
+		int max = Math.max(2, (Integer) sizeField.getValue());
+		String[] sorts = { "quickSelect", "introSelect", "heapTopK", "quickSort" };
+		(new Thread(() -> {
+			DrawPanel offScreen = DrawPanel.offScreen(max);
+			offScreen.setK(k);
+			List<Object[]> rows = new ArrayList<>();
+			for (int size = Math.min(1024, max); size <= max; size = size == max ? max + 1 : Math.min(2 * size, max)) {
+				Object[] row = new Object[sorts.length + 1];
+				row[0] = size;
+				long seed = new Random().nextLong();
+				long full = 0;
+				for (int i = sorts.length - 1; i >= 0; i--) {
+					// every sort gets the same permutation
+					offScreen.setSize(size);
+					offScreen.permute(seed);
+					offScreen.resetCounts();
+					offScreen.performTask(sortTask(sorts[i]));
+					offScreen.performTask(Task.TOGGLEPAUSE);
+					offScreen.sort();
+					offScreen.killSort();
+					long ops = offScreen.getComparisons() + offScreen.getWrites();
+					if (i == sorts.length - 1)
+						full = ops;
+					row[i + 1] = i == sorts.length - 1 ? String.valueOf(ops)
+							: String.format("%d (%.1f%%)", ops, 100.0 * ops / full);
+				}
+				rows.add(row);
+			}
+			String[] columns = { "n", "quickSelect", "introSelect", "heapTopK", "quickSort" };
+			SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+					new JScrollPane(new JTable(rows.toArray(new Object[0][]), columns)),
+					"Operations for k=" + k + " (comparisons + writes)", JOptionPane.PLAIN_MESSAGE));
+		})).start();
+	}
+
+	/**
+	 * Used when the stream to browser menu item is clicked. Starts streaming the
+	 * sort to browsers on a user selected port, or stops streaming if it is
+	 * already running.
+	 */
+	private void toggleStreaming() {
+		if (streamServer != null) {
+			streamServer.stop();
+			streamServer = null;
+			streamItem.setText("Stream to Browser");
+			return;
+		}
+		JFormattedTextField portField = intField(8080, 65534);
+		JCheckBox remote = new JCheckBox();
+		Object[] inputField = { "HTTP port (the WebSocket uses the next port): ", portField,
+				"Let other computers watch? ", remote };
+		int option = JOptionPane.showConfirmDialog(this, inputField, "Stream to Browser", JOptionPane.OK_CANCEL_OPTION,
+				JOptionPane.PLAIN_MESSAGE);
+		if (option != JOptionPane.OK_OPTION)
+			return;
+		int port = (Integer) portField.getValue();
+		try {
+			// null listens on every address of this computer
+			streamServer = new SortStreamServer(plane, remote.isSelected() ? null : InetAddress.getLoopbackAddress(),
+					port, controller::execute);
+			streamItem.setText("Stop Streaming");
+			String where = remote.isSelected() ? ", or this computer's name or address from another computer" : "";
+			JOptionPane.showMessageDialog(this, "Open http://localhost:" + port + "/ in a browser" + where,
+					"Stream to Browser", JOptionPane.INFORMATION_MESSAGE);
+		} catch (IOException ex) {
+			JOptionPane.showMessageDialog(this, ex.getMessage(), "Stream to Browser", JOptionPane.ERROR_MESSAGE);
 		}
 	}
 
+	/**
+	 * Builds a text field that only accepts whole numbers from 1 to max
+	 * 
+	 * @param value the initial value
+	 * @param max   the largest allowed value
+	 * @return the text field
+	 */
+	private static JFormattedTextField intField(int value, int max) {
+		NumberFormat format = NumberFormat.getInstance();
+		format.setGroupingUsed(false);
+		NumberFormatter formatter = new NumberFormatter(format);
+		formatter.setValueClass(Integer.class);
+		formatter.setMinimum(1);
+		formatter.setMaximum(max);
+		formatter.setCommitsOnValidEdit(true);
+		JFormattedTextField field = new JFormattedTextField(formatter);
+		field.setValue(value);
+		return field;
+	}
+
 	/**
 	 * Used when the set size button is clicked. Prompts the user to enter a size
 	 * select how to order the rectangles.
@@ -243,7 +992,7 @@ public class SortFrame extends JFrame implements ActionListener {
 		//setup pop=up GUI
 		NumberFormat format = NumberFormat.getInstance();
 		NumberFormatter formatter = new NumberFormatter(format);
-		checkBoxes = new JCheckBox[3];
+		checkBoxes = new JCheckBox[4];
 		formatter.setValueClass(Integer.class);
 		formatter.setMaximum(MAXRECTANGLES);
 		formatter.setAllowsInvalid(false);
@@ -255,37 +1004,69 @@ public class SortFrame extends JFrame implements ActionListener {
 		sorted.addActionListener(this);
 		JCheckBox reverseSorted = new JCheckBox();
 		reverseSorted.addActionListener(this);
+		JCheckBox skewed = new JCheckBox();
+		skewed.addActionListener(this);
 		checkBoxes[0] = permute;
 		checkBoxes[1] = sorted;
 		checkBoxes[2] = reverseSorted;
+		checkBoxes[3] = skewed;
 		JFormattedTextField sizeField = new JFormattedTextField(formatter);
-		int currSize = plane.getCount();
+		int currSize = controller.getSnapshot().count();
 		if(currSize==0)
 			currSize = 15;
 		sizeField.setText(""+currSize);
 		Object[] inputField = { "Enter the size (2-" + MAXRECTANGLES + "): ", sizeField, "Generate Permuted? ", 
-				permute, "Generate sorted? ", sorted, "Generate reverse-sorted? ", reverseSorted };
+				permute, "Generate sorted? ", sorted, "Generate reverse-sorted? ", reverseSorted,
+				"Generate skewed (Zipf keys)? ", skewed };
 		int option = JOptionPane.showConfirmDialog(null, inputField, "How many items?", JOptionPane.OK_CANCEL_OPTION,
 				JOptionPane.PLAIN_MESSAGE);
 		
-		//parse the selected size
+		//parse the selected size, resizing ends the current sort
 		if(option != JOptionPane.OK_OPTION || sizeField.getText().isBlank()) {
-			plane.setSize(15);
+			controller.post(new SortController.Command(Task.RESIZE, 15, null));
 		} else {
-			plane.setSize(Integer.parseInt(sizeField.getText()));
+			controller.post(new SortController.Command(Task.RESIZE, Integer.parseInt(sizeField.getText()), null));
 		}
 		checkBoxes = null;
 		if(permute.isSelected())
-			plane.performTask(Task.PERMUTE);
+			controller.post(Task.PERMUTE);
 		else if(reverseSorted.isSelected())
-			plane.performTask(Task.BUILDDESCENDING);
+			controller.post(Task.BUILDDESCENDING);
+		else if(skewed.isSelected())
+			controller.post(Task.BUILDSKEWED);
 		else
-			plane.performTask(Task.BUILDASCENDING);
-		plane.killSort(); //end current sort
-		startSort.setText("Start Sorting");
-		stepThrough.setText("Disable Step by Step");
-		startSort.setEnabled(true);
-		stepThrough.setEnabled(true);
+			controller.post(Task.BUILDASCENDING);
+	}
+
+	/**
+	 * Used when the load data menu item is clicked. Prompts the user for a file
+	 * and its format and replaces the rectangles with the keys in that file.
+	 */
+	private void loadData() {
+		JTextField fileField = new JTextField();
+		JComboBox<String> formatBox = new JComboBox<>(new String[] { "binary longs", "binary doubles", "CSV column",
+				"text lines" });
+		JFormattedTextField columnField = intField(1, 1024);
+		JCheckBox descending = new JCheckBox();
+		Object[] inputField = { "File: ", fileField, "Format: ", formatBox, "CSV column (1 = first): ", columnField,
+				"Sort descending? ", descending };
+		int option = JOptionPane.showConfirmDialog(this, inputField, "Load Data", JOptionPane.OK_CANCEL_OPTION,
+				JOptionPane.PLAIN_MESSAGE);
+		if (option != JOptionPane.OK_OPTION || fileField.getText().isBlank())
+			return;
+		Path file = Path.of(fileField.getText().strip());
+		try {
+			DataSet data = switch (formatBox.getSelectedIndex()) {
+			case 0 -> DataSet.mapLongs(file);
+			case 1 -> DataSet.mapDoubles(file);
+			case 2 -> DataSet.csvColumn(file, (Integer) columnField.getValue() - 1);
+			default -> DataSet.textLines(file);
+			};
+			//loading ends the current sort
+			controller.post(new SortController.Command(Task.LOAD, descending.isSelected() ? 1 : 0, data));
+		} catch (IOException ex) {
+			JOptionPane.showMessageDialog(this, ex.getMessage(), "Load Data", JOptionPane.ERROR_MESSAGE);
+		}
 	}
 	/**
 	 * Used when the set delay button is clicked. Prompts the user to enter a delay
@@ -301,13 +1082,13 @@ public class SortFrame extends JFrame implements ActionListener {
 		formatter.setAllowsInvalid(false);
 		formatter.setCommitsOnValidEdit(true);
 		JFormattedTextField delayField = new JFormattedTextField(formatter);
-		delayField.setText(""+plane.getDelay());
+		delayField.setText(""+controller.getSnapshot().delay());
 		Object[] inputField = { "Enter the delay (in millis) between each sort step: ", delayField};
 		int option = JOptionPane.showConfirmDialog(null, inputField, "Set Speed", JOptionPane.OK_CANCEL_OPTION,
 				JOptionPane.PLAIN_MESSAGE);
 		//parse selected delay
 		if (option == JOptionPane.OK_OPTION && !delayField.getText().isBlank()) {
-			plane.setDelay(Integer.parseInt(delayField.getText()));
+			controller.post(new SortController.Command(Task.DELAY, Integer.parseInt(delayField.getText()), null));
 		} 
 	}
 }
@@ -0,0 +1,53 @@
+package sortVisualizer;
+/**
+ * Receives the low level operations a DrawPanel performs on its
+ * rectangles while sorting. All methods do nothing by default so
+ * a listener only needs to override the operations it cares about.
+ */
+public interface SortListener {
+	/**
+	 * Called whenever the rectangle at an index is read or written
+	 * @param index the index of the rectangle
+	 */
+	public default void accessed(int index) {
+	}
+	/**
+	 * Called whenever two rectangles are compared
+	 * @param a index of the first rectangle
+	 * @param b index of the second rectangle
+	 */
+	public default void compared(int a, int b) {
+	}
+	/**
+	 * Called after a rectangle has been written to an index
+	 * @param index the index that was written
+	 */
+	public default void written(int index) {
+	}
+	/**
+	 * Called whenever an element of the current sort's auxiliary buffer, such
+	 * as a merge buffer, is read or written. The buffer is memory of its own,
+	 * apart from the rectangles.
+	 * @param index the index in the buffer
+	 */
+	public default void auxAccessed(int index) {
+	}
+	/**
+	 * Called whenever a character of a string key is read, keys live in memory
+	 * of their own, one after the other
+	 * @param offset the byte offset of the character from the start of the keys
+	 */
+	public default void keyAccessed(long offset) {
+	}
+	/**
+	 * Called after all of the rectangles have been replaced, such as
+	 * when the size is changed or data is loaded
+	 */
+	public default void rebuilt() {
+	}
+	/**
+	 * Called when a new sort has been selected and is about to start
+	 */
+	public default void sortStarted() {
+	}
+}
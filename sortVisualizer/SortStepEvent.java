@@ -0,0 +1,50 @@
+package sortVisualizer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one step of a SortingIterator. Only steps slower than the
+ * threshold are recorded so recording stays cheap at high step rates, the
+ * SortBatchEvent covers every step.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+@Name("sortVisualizer.SortStep")
+@Label("Sort Step")
+@Category("Sort Visualizer")
+@StackTrace(false)
+@Description("One step of a sorting algorithm")
+@Threshold("1 ms")
+public class SortStepEvent extends Event {
+	@Label("Algorithm")
+	String algorithm;
+
+	@Label("Last Operation")
+	@Description("compare or write, the last operation the step performed")
+	String operation;
+
+	@Label("First Index")
+	int index1;
+
+	@Label("Second Index")
+	@Description("-1 for a write")
+	int index2;
+
+	@Label("Sleep Time")
+	@Description("Time spent pausing inside the step")
+	@Timespan
+	long sleepNanos;
+
+	@Label("Draw Time")
+	@Description("Time spent drawing rectangles inside the step")
+	@Timespan
+	long drawNanos;
+}
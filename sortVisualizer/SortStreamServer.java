@@ -0,0 +1,526 @@
+package sortVisualizer;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Streams the compares and writes of a DrawPanel to browsers. The page is
+ * served over HTTP on a port and the events are sent over a WebSocket on the
+ * next port, since com.sun.net.httpserver cannot upgrade a connection.
+ * <p>
+ * Events are batched into binary frames. Each frame is a sequence of:
+ * <ul>
+ * <li>0, index delta, second index delta: a compare</li>
+ * <li>1, index delta, value: a write</li>
+ * <li>2, count, area height, count values: a snapshot of every rectangle</li>
+ * </ul>
+ * All numbers are unsigned LEB128 varints, deltas are zigzag encoded and
+ * relative to the previous index in the same frame. Values are the y position
+ * of a rectangle's top. Every client has a bounded queue of frames, a client
+ * whose queue is full is dropped so the sort thread never waits on a socket.
+ * The server keeps its own copy of the heights, taken on the sort thread and
+ * updated by the listener callbacks, so new clients get their snapshot without
+ * reading the rectangles from the accepting thread. Frames from the browser
+ * are read to answer pings and close frames.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class SortStreamServer implements SortListener {
+	private static final int QUEUESIZE = 256; // frames a client may fall behind by
+	private static final int FRAMEBYTES = 1 << 14; // frame size that forces a flush
+	private static final int MAXVARINT = 5; // bytes of the longest int varint
+	private static final int FLUSHMILLIS = 33;
+	private static final int HANDSHAKEMILLIS = 2000;
+	private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+	private static final int CLOSE = 0x8;
+	private static final int PING = 0x9;
+	private static final int PONG = 0xA;
+	private static final int BINARY = 0x2;
+	private static final int MAXCONTROL = 125; // the largest control frame payload
+	private final DrawPanel plane;
+	private final HttpServer http;
+	private final ServerSocket sockets;
+	private final ScheduledExecutorService flusher;
+	private final CopyOnWriteArrayList<Client> clients;
+	private byte[] frame;
+	private int length;
+	private int previous;
+	private int[] heights;
+	private int areaHeight;
+	private boolean stopped;
+
+	/**
+	 * Starts serving the page on port and the WebSocket on port + 1 of the
+	 * loopback address and adds the server as a listener of the panel
+	 *
+	 * @param plane      the panel to stream
+	 * @param port       the HTTP port
+	 * @param sortThread runs the first snapshot of the rectangles on the thread
+	 *                   that sorts them
+	 * @throws IOException if either port cannot be bound
+	 */
+	public SortStreamServer(DrawPanel plane, int port, Executor sortThread) throws IOException {
+		this(plane, InetAddress.getLoopbackAddress(), port, sortThread);
+	}
+
+	/**
+	 * Starts serving the page on port and the WebSocket on port + 1 of an address
+	 * and adds the server as a listener of the panel
+	 *
+	 * @param plane      the panel to stream
+	 * @param address    the address to listen on, null for every address of this
+	 *                   machine so other machines can watch
+	 * @param port       the HTTP port
+	 * @param sortThread runs the first snapshot of the rectangles on the thread
+	 *                   that sorts them
+	 * @throws IOException if either port cannot be bound
+	 */
+	public SortStreamServer(DrawPanel plane, InetAddress address, int port, Executor sortThread)
+			throws IOException {
+		this.plane = plane;
+		clients = new CopyOnWriteArrayList<>();
+		frame = new byte[FRAMEBYTES + 64];
+		sockets = new ServerSocket();
+		sockets.bind(new InetSocketAddress(address, port + 1));
+		try {
+			http = HttpServer.create(new InetSocketAddress(address, port), 0);
+		} catch (IOException e) {
+			sockets.close();
+			throw e;
+		}
+		http.createContext("/", exchange -> {
+			byte[] page = PAGE.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+			exchange.sendResponseHeaders(200, page.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(page);
+			}
+		});
+		http.start();
+		Thread acceptor = new Thread(this::accept, "stream-accept");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "stream-flush");
+			t.setDaemon(true);
+			return t;
+		});
+		flusher.scheduleAtFixedRate(this::flush, FLUSHMILLIS, FLUSHMILLIS, TimeUnit.MILLISECONDS);
+		// the copy is taken and the callbacks start on the sort thread, clients
+		// that connect before then get the copy as soon as it is taken
+		sortThread.execute(() -> {
+			synchronized (this) {
+				if (stopped)
+					return;
+				rebuilt();
+				plane.addSortListener(this);
+			}
+		});
+	}
+
+	/**
+	 * Stops both servers and disconnects every client
+	 */
+	public void stop() {
+		synchronized (this) {
+			stopped = true;
+		}
+		plane.removeSortListener(this);
+		flusher.shutdownNow();
+		http.stop(0);
+		try {
+			sockets.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		for (Client client : clients)
+			client.close();
+	}
+
+	/**
+	 * Returns the number of connected clients
+	 *
+	 * @return the number of clients
+	 */
+	public int getClientCount() {
+		return clients.size();
+	}
+
+	@Override
+	public synchronized void compared(int a, int b) {
+		if (clients.isEmpty())
+			return;
+		put(0);
+		putDelta(a);
+		putDelta(b);
+		flushIfFull();
+	}
+
+	@Override
+	public synchronized void written(int index) {
+		heights[index] = plane.peek(index).getHeight();
+		if (clients.isEmpty())
+			return;
+		put(1);
+		putDelta(index);
+		putVarint(heights[index]);
+		flushIfFull();
+	}
+
+	@Override
+	public synchronized void rebuilt() {
+		heights = new int[plane.getCount()];
+		for (int i = 0; i < heights.length; i++)
+			heights[i] = plane.peek(i).getHeight();
+		areaHeight = plane.getAreaHeight();
+		if (clients.isEmpty())
+			return;
+		byte[] snapshot = snapshot();
+		for (Client client : clients)
+			client.send(snapshot);
+	}
+
+	/**
+	 * Encodes the copy of the heights as a snapshot frame, in a buffer of its own
+	 * so the event frame stays small
+	 *
+	 * @return the snapshot frame
+	 */
+	private synchronized byte[] snapshot() {
+		flush();
+		byte[] snapshot = new byte[1 + MAXVARINT * (heights.length + 2)];
+		snapshot[0] = 2;
+		int at = putVarint(snapshot, 1, heights.length);
+		at = putVarint(snapshot, at, areaHeight);
+		for (int height : heights)
+			at = putVarint(snapshot, at, height);
+		return Arrays.copyOf(snapshot, at);
+	}
+
+	private void flushIfFull() {
+		if (length >= FRAMEBYTES)
+			flush();
+	}
+
+	/**
+	 * Hands the current frame to every client, dropping clients that are too far
+	 * behind
+	 */
+	private synchronized void flush() {
+		if (length == 0)
+			return;
+		byte[] out = Arrays.copyOf(frame, length);
+		length = 0;
+		previous = 0;
+		for (Client client : clients)
+			client.send(out);
+	}
+
+	private void put(int b) {
+		frame[length++] = (byte) b;
+	}
+
+	private void putDelta(int index) {
+		int delta = index - previous;
+		previous = index;
+		putVarint((delta << 1) ^ (delta >> 31));
+	}
+
+	private void putVarint(int value) {
+		length = putVarint(frame, length, value);
+	}
+
+	/**
+	 * Writes an unsigned LEB128 varint
+	 *
+	 * @param out   the buffer
+	 * @param at    the index to write at
+	 * @param value the value
+	 * @return the index after the varint
+	 */
+	private static int putVarint(byte[] out, int at, int value) {
+		while ((value & ~0x7F) != 0) {
+			out[at++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out[at++] = (byte) value;
+		return at;
+	}
+
+	/**
+	 * Accepts WebSocket connections until the server is stopped
+	 */
+	private void accept() {
+		while (!sockets.isClosed()) {
+			Socket socket;
+			try {
+				socket = sockets.accept();
+			} catch (IOException e) {
+				// the server socket was closed
+				continue;
+			}
+			try {
+				socket.setSoTimeout(HANDSHAKEMILLIS);
+				if (!handshake(socket)) {
+					socket.close();
+					continue;
+				}
+				socket.setSoTimeout(0);
+				Client client = new Client(socket);
+				// the snapshot goes into the queue before any event frame
+				synchronized (this) {
+					if (heights != null)
+						client.send(snapshot());
+					clients.add(client);
+				}
+			} catch (IOException e) {
+				// the handshake failed or the browser went away
+				try {
+					socket.close();
+				} catch (IOException closeFailed) {
+					e.addSuppressed(closeFailed);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the HTTP upgrade request and answers it
+	 *
+	 * @param socket the new connection
+	 * @return true if the connection is now a WebSocket
+	 * @throws IOException if reading or writing fails
+	 */
+	private static boolean handshake(Socket socket) throws IOException {
+		InputStream in = socket.getInputStream();
+		String key = null;
+		String line;
+		while ((line = readLine(in)) != null && !line.isEmpty()) {
+			int colon = line.indexOf(':');
+			if (colon > 0 && line.substring(0, colon).strip().equalsIgnoreCase("Sec-WebSocket-Key"))
+				key = line.substring(colon + 1).strip();
+		}
+		if (key == null)
+			return false;
+		String accept;
+		try {
+			MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+			accept = Base64.getEncoder().encodeToString(sha1.digest((key + GUID).getBytes(StandardCharsets.ISO_8859_1)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		OutputStream out = socket.getOutputStream();
+		out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+				+ "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+		out.flush();
+		return true;
+	}
+
+	/**
+	 * Reads one line of the upgrade request a byte at a time, so no byte of the
+	 * frames after it is buffered away from the client's reader
+	 *
+	 * @param in the socket's stream
+	 * @return the line without its line break, or null at the end of the stream
+	 * @throws IOException if reading fails
+	 */
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder line = new StringBuilder();
+		int b;
+		while ((b = in.read()) != '\n') {
+			if (b == -1)
+				return line.isEmpty() ? null : line.toString();
+			if (b != '\r')
+				line.append((char) b);
+		}
+		return line.toString();
+	}
+
+	/**
+	 * A connected browser with its own queue of frames and writer thread, and a
+	 * reader thread that answers its control frames
+	 */
+	private class Client {
+		private final Socket socket;
+		private final OutputStream out;
+		private final BlockingQueue<byte[]> queue;
+		private final Thread writer;
+		private final Thread reader;
+
+		public Client(Socket socket) throws IOException {
+			this.socket = socket;
+			out = socket.getOutputStream();
+			queue = new ArrayBlockingQueue<>(QUEUESIZE);
+			writer = new Thread(this::write, "stream-client");
+			writer.setDaemon(true);
+			reader = new Thread(this::read, "stream-client-read");
+			reader.setDaemon(true);
+			writer.start();
+			reader.start();
+		}
+
+		/**
+		 * Queues a frame without waiting, dropping the client if it is full
+		 *
+		 * @param frame the frame
+		 */
+		public void send(byte[] frame) {
+			if (!queue.offer(frame))
+				close();
+		}
+
+		public void close() {
+			clients.remove(this);
+			writer.interrupt();
+			reader.interrupt();
+			try {
+				socket.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		/**
+		 * Writes queued frames as binary WebSocket messages
+		 */
+		private void write() {
+			try {
+				while (true)
+					writeFrame(BINARY, queue.take());
+			} catch (IOException | InterruptedException e) {
+				close();
+			}
+		}
+
+		/**
+		 * Writes one unmasked, unfragmented WebSocket frame. The reader and writer
+		 * threads both write, so whole frames are written under the client's lock.
+		 *
+		 * @param opcode  the frame type
+		 * @param payload the payload
+		 * @throws IOException if the socket is closed
+		 */
+		private synchronized void writeFrame(int opcode, byte[] payload) throws IOException {
+			out.write(0x80 | opcode);
+			if (payload.length < 126) {
+				out.write(payload.length);
+			} else if (payload.length < 65536) {
+				out.write(126);
+				out.write(payload.length >>> 8);
+				out.write(payload.length);
+			} else {
+				out.write(127);
+				for (int shift = 56; shift >= 0; shift -= 8)
+					out.write((int) ((long) payload.length >>> shift));
+			}
+			out.write(payload);
+			out.flush();
+		}
+
+		/**
+		 * Reads the browser's frames, answering pings with pongs and close frames
+		 * with a close frame before closing the connection. Data frames are
+		 * ignored, the page never sends any.
+		 */
+		private void read() {
+			try {
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				while (true) {
+					int first = in.readUnsignedByte();
+					int second = in.readUnsignedByte();
+					int opcode = first & 0x0F;
+					long length = second & 0x7F;
+					if (length == 126)
+						length = in.readUnsignedShort();
+					else if (length == 127)
+						length = in.readLong();
+					boolean control = (opcode & 0x8) != 0;
+					// client frames must be masked and control frames are short
+					if ((second & 0x80) == 0 || length < 0 || (control && length > MAXCONTROL)) {
+						writeFrame(CLOSE, new byte[] { 0x03, (byte) 0xEA }); // 1002, protocol error
+						break;
+					}
+					byte[] mask = new byte[4];
+					in.readFully(mask);
+					if (!control) {
+						in.skipNBytes(length);
+						continue;
+					}
+					byte[] payload = new byte[(int) length];
+					in.readFully(payload);
+					for (int i = 0; i < payload.length; i++)
+						payload[i] ^= mask[i & 3];
+					if (opcode == CLOSE) {
+						// echo the status code back, as the protocol asks
+						writeFrame(CLOSE, Arrays.copyOf(payload, Math.min(payload.length, 2)));
+						break;
+					}
+					if (opcode == PING)
+						writeFrame(PONG, payload);
+				}
+			} catch (IOException e) {
+				// the browser went away or the client was closed
+			}
+			close();
+		}
+	}
+
+	private static final String PAGE = """
+			<!DOCTYPE html>
+			<html><head><title>Sort Visualizer</title></head>
+			<body style="margin:0;background:#fff">
+			<canvas id="c" width="800" height="550"></canvas>
+			<script>
+			const canvas = document.getElementById('c');
+			const ctx = canvas.getContext('2d');
+			let ys = [], areaHeight = 1, compared = new Set(), written = new Set();
+			const ws = new WebSocket('ws://' + location.hostname + ':' + (Number(location.port) + 1) + '/');
+			ws.binaryType = 'arraybuffer';
+			ws.onmessage = e => {
+			  const b = new Uint8Array(e.data);
+			  let p = 0, prev = 0;
+			  const varint = () => { let v = 0, s = 0, x; do { x = b[p++]; v |= (x & 0x7f) << s; s += 7; } while (x & 0x80); return v >>> 0; };
+			  const delta = () => { const z = varint(); prev += (z >>> 1) ^ -(z & 1); return prev; };
+			  while (p < b.length) {
+			    const op = b[p++];
+			    if (op === 0) { compared.add(delta()); compared.add(delta()); }
+			    else if (op === 1) { const i = delta(); ys[i] = varint(); written.add(i); }
+			    else { const n = varint(); areaHeight = varint(); ys = []; for (let i = 0; i < n; i++) ys.push(varint()); }
+			  }
+			};
+			function draw() {
+			  ctx.clearRect(0, 0, canvas.width, canvas.height);
+			  const w = canvas.width / Math.max(ys.length, 1), scale = canvas.height / areaHeight;
+			  ys.forEach((y, i) => {
+			    ctx.fillStyle = written.has(i) ? 'red' : compared.has(i) ? 'blue' : 'black';
+			    ctx.fillRect(i * w, y * scale, Math.max(w - 1, 1), canvas.height - y * scale);
+			  });
+			  compared.clear(); written.clear();
+			  requestAnimationFrame(draw);
+			}
+			requestAnimationFrame(draw);
+			</script></body></html>
+			""";
+}
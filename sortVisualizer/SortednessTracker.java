@@ -0,0 +1,269 @@
+package sortVisualizer;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of how sorted the rectangles of a DrawPanel are while they are
+ * being sorted. The ranks of the keys are split into blocks of about
+ * sqrt(n log n) indices that are each kept sorted, so the exact change in the
+ * inversion count from a write, even one far from its partner in a swap, costs
+ * O(sqrt(n log n)) instead of a full O(n^2) recount, in O(n) memory and
+ * O(n log n) setup. The number of ascending runs is updated from the neighbors
+ * of each write, and the longest increasing subsequence is computed on demand.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class SortednessTracker implements SortListener {
+	private final DrawPanel plane;
+	private Rectangle[] sorted;
+	private int[] sortedRanks;
+	private int[] ranks;
+	private int distinct;
+	private SortedBlocks blocks;
+	private volatile long inversions;
+	private volatile int descents;
+	private volatile long startInversions;
+	private volatile long startTime;
+
+	/**
+	 * Builds a tracker for the rectangles of a DrawPanel and adds it as a listener
+	 *
+	 * @param plane the panel to track
+	 */
+	public SortednessTracker(DrawPanel plane) {
+		this.plane = plane;
+		rebuilt();
+		plane.addSortListener(this);
+	}
+
+	@Override
+	public synchronized void rebuilt() {
+		int size = plane.getCount();
+		sorted = new Rectangle[size];
+		for (int i = 0; i < size; i++)
+			sorted[i] = plane.peek(i);
+		Arrays.sort(sorted, plane.getComparator());
+		ranks = new int[size];
+		sortedRanks = new int[size];
+		distinct = 0;
+		for (int i = 0; i < size; i++) {
+			if (i == 0 || plane.getComparator().compare(sorted[i - 1], sorted[i]) != 0)
+				distinct++;
+			sortedRanks[i] = distinct;
+		}
+		// the starting inversions are counted with a Fenwick tree over the ranks
+		int[] tree = new int[distinct + 1];
+		long count = 0;
+		int down = 0;
+		for (int i = 0; i < size; i++) {
+			ranks[i] = rankOf(plane.peek(i));
+			for (int r = ranks[i]; r > 0; r -= r & -r)
+				count -= tree[r];
+			count += i;
+			for (int r = ranks[i]; r <= distinct; r += r & -r)
+				tree[r]++;
+			if (i > 0 && ranks[i - 1] > ranks[i])
+				down++;
+		}
+		blocks = new SortedBlocks(ranks);
+		inversions = count;
+		descents = down;
+		sortStarted();
+	}
+
+	@Override
+	public synchronized void sortStarted() {
+		startInversions = inversions;
+		startTime = System.nanoTime();
+	}
+
+	@Override
+	public synchronized void written(int index) {
+		int oldRank = ranks[index];
+		int newRank = rankOf(plane.peek(index));
+		if (oldRank == newRank)
+			return;
+		int size = ranks.length;
+		int down = descents - descent(index - 1) - descent(index);
+		// inversions the old key made with every other key: larger keys before it
+		// and smaller keys after it
+		long before = index - blocks.countBelow(0, index, oldRank + 1)
+				+ blocks.countBelow(index + 1, size, oldRank);
+		blocks.set(index, newRank);
+		long after = index - blocks.countBelow(0, index, newRank + 1) + blocks.countBelow(index + 1, size, newRank);
+		inversions += after - before;
+		descents = down + descent(index - 1) + descent(index);
+	}
+
+	/**
+	 * Returns 1 if the key at index is larger than the key after it
+	 *
+	 * @param index the index
+	 * @return 1 for a descent, otherwise 0
+	 */
+	private int descent(int index) {
+		return index >= 0 && index + 1 < ranks.length && ranks[index] > ranks[index + 1] ? 1 : 0;
+	}
+
+	/**
+	 * Returns the rank (1 based, equal keys share a rank) of a rectangle's key
+	 *
+	 * @param r the rectangle
+	 * @return the rank of its key
+	 */
+	private int rankOf(Rectangle r) {
+		int lo = 0;
+		int hi = sorted.length - 1;
+		// first index whose key is not smaller than r's key, every key is in sorted
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (plane.getComparator().compare(sorted[mid], r) < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return sortedRanks[lo];
+	}
+
+	/**
+	 * Returns the number of pairs of keys that are out of order
+	 *
+	 * @return the inversion count
+	 */
+	public long getInversions() {
+		return inversions;
+	}
+
+	/**
+	 * Returns the number of maximal ascending runs
+	 *
+	 * @return the number of runs
+	 */
+	public int getRuns() {
+		return ranks.length == 0 ? 0 : descents + 1;
+	}
+
+	/**
+	 * Computes the length of the longest non decreasing subsequence
+	 *
+	 * @return the length of the longest subsequence
+	 */
+	public synchronized int getLongestSubsequence() {
+		int[] tails = new int[ranks.length];
+		int length = 0;
+		for (int rank : ranks) {
+			// first tail larger than rank
+			int lo = 0;
+			int hi = length;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (tails[mid] <= rank)
+					lo = mid + 1;
+				else
+					hi = mid;
+			}
+			tails[lo] = rank;
+			if (lo == length)
+				length++;
+		}
+		return length;
+	}
+
+	/**
+	 * Returns how far the current sort is, measured by the inversions removed
+	 * since it started
+	 *
+	 * @return the progress from 0 to 1
+	 */
+	public double getProgress() {
+		if (startInversions == 0)
+			return inversions == 0 ? 1 : 0;
+		return Math.max(0, 1 - inversions / (double) startInversions);
+	}
+
+	/**
+	 * Estimates the time left in the current sort from its progress so far
+	 *
+	 * @return the estimated milliseconds left, -1 if there is no estimate yet
+	 */
+	public long getEstimatedMillisLeft() {
+		double progress = getProgress();
+		if (progress <= 0 || progress >= 1)
+			return progress >= 1 ? 0 : -1;
+		double elapsed = (System.nanoTime() - startTime) / 1e6;
+		return (long) (elapsed * (1 - progress) / progress);
+	}
+
+	/**
+	 * The ranks split into blocks of indices, each with a sorted copy of its
+	 * ranks, to count the ranks below a bound in a range of indices
+	 */
+	private static class SortedBlocks {
+		private final int[] ranks;
+		private final int[] sorted;
+		private final int blockSize;
+
+		/**
+		 * Sorts the blocks of an array of ranks, which is then updated through set
+		 *
+		 * @param ranks the ranks by index
+		 */
+		public SortedBlocks(int[] ranks) {
+			this.ranks = ranks;
+			int n = Math.max(ranks.length, 2);
+			blockSize = Math.max(16, (int) Math.sqrt(n * (32 - Integer.numberOfLeadingZeros(n))));
+			sorted = ranks.clone();
+			for (int start = 0; start < sorted.length; start += blockSize)
+				Arrays.sort(sorted, start, Math.min(start + blockSize, sorted.length));
+		}
+
+		/**
+		 * Counts the indices from up to (not including) to whose rank is below a
+		 * bound, scanning the partial blocks at the ends and binary searching the
+		 * whole blocks between them
+		 */
+		public int countBelow(int from, int to, int bound) {
+			int count = 0;
+			int i = from;
+			for (; i < to && i % blockSize != 0; i++)
+				if (ranks[i] < bound)
+					count++;
+			for (; i + blockSize <= to; i += blockSize)
+				count += lowerBound(i, i + blockSize, bound) - i;
+			for (; i < to; i++)
+				if (ranks[i] < bound)
+					count++;
+			return count;
+		}
+
+		/**
+		 * Changes the rank at an index, shifting it to its place in its block
+		 */
+		public void set(int index, int rank) {
+			int start = index - index % blockSize;
+			int end = Math.min(start + blockSize, sorted.length);
+			int i = lowerBound(start, end, ranks[index]);
+			ranks[index] = rank;
+			for (; i > start && sorted[i - 1] > rank; i--)
+				sorted[i] = sorted[i - 1];
+			for (; i + 1 < end && sorted[i + 1] < rank; i++)
+				sorted[i] = sorted[i + 1];
+			sorted[i] = rank;
+		}
+
+		/**
+		 * Returns the first index from start whose sorted rank is not below a bound
+		 */
+		private int lowerBound(int start, int end, int bound) {
+			while (start < end) {
+				int mid = (start + end) >>> 1;
+				if (sorted[mid] < bound)
+					start = mid + 1;
+				else
+					end = mid;
+			}
+			return start;
+		}
+	}
+}
@@ -14,4 +14,10 @@ public interface SortingIterator {
 	 * @return true if there is another step, otherwise false
 	 */
 	public boolean hasNextStep();
+	/**
+	 * Releases anything the SortingIterator holds on to, called when
+	 * it finishes or is replaced or killed before finishing
+	 */
+	public default void close() {
+	}
 }
@@ -0,0 +1,196 @@
+package sortVisualizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Builds bitonic and Batcher odd-even merge sorting networks for any number
+ * of elements and runs them on int arrays. A network is a list of layers, each
+ * layer is a flat array of index pairs (lo, hi) whose compare-exchanges are
+ * independent of each other, so a whole layer can run at once. The networks
+ * can also run on an array without being built, for sizes whose layers would
+ * not fit in memory.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public class SortingNetworks {
+	private static final int PARALLELTHRESHOLD = 1 << 13; // indices per task when run in parallel
+
+	private SortingNetworks() {
+	}
+
+	/**
+	 * Builds a bitonic sorting network. Every comparator puts the smaller element
+	 * at the lower index, so comparators that would touch an index past n can be
+	 * dropped as if the list was padded with infinities.
+	 *
+	 * @param n the number of elements
+	 * @return the layers of the network
+	 */
+	public static List<int[]> bitonic(int n) {
+		List<int[]> layers = new ArrayList<>();
+		for (int k = 2; k / 2 < n; k <<= 1) {
+			layers.add(layer(n, k - 1));
+			for (int j = k / 4; j > 0; j >>= 1)
+				layers.add(layer(n, j));
+		}
+		return layers;
+	}
+
+	/**
+	 * Builds one bitonic layer, pairing i with i ^ mask
+	 *
+	 * @param n    the number of elements
+	 * @param mask the mask to pair indices with, all low bits for the first layer
+	 *             of a merge (which reverses the block) or a single bit after
+	 * @return the layer
+	 */
+	private static int[] layer(int n, int mask) {
+		int[] pairs = new int[n];
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			int partner = i ^ mask;
+			if (partner > i && partner < n) {
+				pairs[count++] = i;
+				pairs[count++] = partner;
+			}
+		}
+		return Arrays.copyOf(pairs, count);
+	}
+
+	/**
+	 * Builds a Batcher odd-even merge sorting network
+	 *
+	 * @param n the number of elements
+	 * @return the layers of the network
+	 */
+	public static List<int[]> oddEvenMerge(int n) {
+		List<int[]> layers = new ArrayList<>();
+		for (int p = 1; p < n; p <<= 1) {
+			for (int k = p; k >= 1; k >>= 1) {
+				int[] pairs = new int[n];
+				int count = 0;
+				for (int j = k % p; j <= n - 1 - k; j += 2 * k) {
+					for (int i = 0; i <= Math.min(k - 1, n - j - k - 1); i++) {
+						if ((i + j) / (p * 2) == (i + j + k) / (p * 2)) {
+							pairs[count++] = i + j;
+							pairs[count++] = i + j + k;
+						}
+					}
+				}
+				if (count > 0)
+					layers.add(Arrays.copyOf(pairs, count));
+			}
+		}
+		return layers;
+	}
+
+	/**
+	 * Sorts an array with a network, generating the comparators of each layer
+	 * from its parameters as it runs instead of building the layers first, which
+	 * for a million elements would take over a gigabyte
+	 *
+	 * @param a        the array to sort
+	 * @param network  the network to run
+	 * @param parallel true to split each large layer across the common fork join
+	 *                 pool
+	 * @return the number of layers run
+	 */
+	public static int sort(int[] a, Network network, boolean parallel) {
+		int n = a.length;
+		int layers = 0;
+		if (network == Network.BITONIC) {
+			for (int k = 2; k / 2 < n; k <<= 1) {
+				int mask = k - 1;
+				run(a, parallel, (from, to) -> bitonicExchange(a, mask, from, to));
+				layers++;
+				for (int j = k / 4; j > 0; j >>= 1) {
+					int bit = j;
+					run(a, parallel, (from, to) -> bitonicExchange(a, bit, from, to));
+					layers++;
+				}
+			}
+		} else {
+			for (int p = 1; p < n; p <<= 1) {
+				for (int k = p; k >= 1; k >>= 1) {
+					int merge = p;
+					int distance = k;
+					// the first layer of a merge only has comparators when it fits
+					if (k % p + k > n - 1)
+						continue;
+					run(a, parallel, (from, to) -> oddEvenExchange(a, merge, distance, from, to));
+					layers++;
+				}
+			}
+		}
+		return layers;
+	}
+
+	/**
+	 * The networks sort can run
+	 */
+	public enum Network {
+		BITONIC, ODDEVENMERGE
+	}
+
+	/**
+	 * Runs the comparators of a layer whose lower index is in a range
+	 */
+	private interface Layer {
+		void exchange(int from, int to);
+	}
+
+	/**
+	 * Runs one layer over every index, split into tasks of PARALLELTHRESHOLD
+	 * indices when in parallel. Each comparator is run by the task holding its
+	 * lower index, so the tasks never touch the same comparator.
+	 */
+	private static void run(int[] a, boolean parallel, Layer layer) {
+		int n = a.length;
+		if (!parallel || n < 2 * PARALLELTHRESHOLD) {
+			layer.exchange(0, n);
+			return;
+		}
+		int tasks = (n + PARALLELTHRESHOLD - 1) / PARALLELTHRESHOLD;
+		IntStream.range(0, tasks).parallel()
+				.forEach(t -> layer.exchange(t * PARALLELTHRESHOLD, Math.min(n, (t + 1) * PARALLELTHRESHOLD)));
+	}
+
+	/**
+	 * Runs the comparators of a bitonic layer, pairing i with i ^ mask, whose
+	 * lower index is from up to (not including) to
+	 */
+	private static void bitonicExchange(int[] a, int mask, int from, int to) {
+		for (int i = from; i < to; i++) {
+			int partner = i ^ mask;
+			if (partner > i && partner < a.length)
+				exchange(a, i, partner);
+		}
+	}
+
+	/**
+	 * Runs the comparators of an odd-even merge layer, pairing i with i + k when
+	 * both are in the same block of 2p and i is in the lower half of its block of
+	 * 2k counted from k % p, whose lower index is from up to (not including) to
+	 */
+	private static void oddEvenExchange(int[] a, int p, int k, int from, int to) {
+		int offset = k % p;
+		for (int i = Math.max(from, offset); i < to && i + k < a.length; i++)
+			if ((i - offset) % (2 * k) < k && i / (p * 2) == (i + k) / (p * 2))
+				exchange(a, i, i + k);
+	}
+
+	/**
+	 * Puts the smaller of two elements at the lower index with min/max instead of
+	 * a branch
+	 */
+	private static void exchange(int[] a, int lo, int hi) {
+		int x = a[lo];
+		int y = a[hi];
+		a[lo] = Math.min(x, y);
+		a[hi] = Math.max(x, y);
+	}
+}
@@ -0,0 +1,492 @@
+package sortVisualizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Keeps a stream of int keys ordered as they arrive, so the sorted view can be
+ * read at any time without sorting a batch. Every index counts the key
+ * comparisons and the key or pointer moves its inserts cost, which is what the
+ * streaming mode of the DrawPanel reports. Every index can also count the keys
+ * up to a key in about O(log n), which the quantiles of the sorted view are
+ * found with, so reading the view never walks the whole index.
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public abstract class StreamIndex {
+	/**
+	 * The structures a stream can be kept ordered in
+	 */
+	public enum Kind {
+		SKIPLIST("skip list"), BTREE("B-tree"), LSM("LSM tree");
+
+		private final String label;
+
+		Kind(String label) {
+			this.label = label;
+		}
+
+		@Override
+		public String toString() {
+			return label;
+		}
+	}
+
+	protected long comparisons;
+	protected long moves;
+	protected int size;
+	private int min = Integer.MAX_VALUE;
+	private int max = Integer.MIN_VALUE;
+
+	/**
+	 * Builds an empty index
+	 *
+	 * @param kind     the structure to use
+	 * @param fanout   the most children of a B-tree node, or the size ratio
+	 *                 between neighboring levels of an LSM tree
+	 * @param memtable the number of keys an LSM tree buffers before it writes
+	 *                 them out as a sorted run
+	 * @return the index
+	 */
+	public static StreamIndex create(Kind kind, int fanout, int memtable) {
+		return switch (kind) {
+		case SKIPLIST -> new SkipList();
+		case BTREE -> new BTree(fanout);
+		case LSM -> new Lsm(fanout, memtable);
+		};
+	}
+
+	/**
+	 * Adds a key
+	 *
+	 * @param key the key
+	 */
+	public void insert(int key) {
+		min = Math.min(min, key);
+		max = Math.max(max, key);
+		add(key);
+	}
+
+	/**
+	 * Adds a key to the structure, counting its comparisons and moves
+	 *
+	 * @param key the key
+	 */
+	protected abstract void add(int key);
+
+	/**
+	 * Counts the keys that are not larger than a key. This is a read, it is not
+	 * counted as comparisons.
+	 *
+	 * @param key the key
+	 * @return the number of keys up to and including key
+	 */
+	public abstract int rank(int key);
+
+	/**
+	 * Fills out with evenly spaced keys of the sorted view, the smallest key first
+	 * and the largest key last
+	 *
+	 * @param out the array to fill
+	 */
+	public void quantiles(int[] out) {
+		quantiles(out, List.of(this));
+	}
+
+	/**
+	 * Fills out with evenly spaced keys of the sorted view of several indices
+	 * together, the smallest key first and the largest key last. Each key is found
+	 * by binary searching the key range for the smallest key whose rank in all
+	 * indices is past the sample's rank, so a sample costs O(log range) rank
+	 * queries.
+	 *
+	 * @param out     the array to fill
+	 * @param indices the indices
+	 */
+	public static void quantiles(int[] out, List<StreamIndex> indices) {
+		long total = 0;
+		int lowest = Integer.MAX_VALUE;
+		int highest = Integer.MIN_VALUE;
+		for (StreamIndex index : indices) {
+			total += index.size;
+			lowest = Math.min(lowest, index.min);
+			highest = Math.max(highest, index.max);
+		}
+		if (total == 0) {
+			Arrays.fill(out, 0);
+			return;
+		}
+		int lo = lowest;
+		for (int sample = 0; sample < out.length; sample++) {
+			long target = out.length == 1 ? 0 : (long) sample * (total - 1) / (out.length - 1);
+			// the samples ascend, so the search starts at the previous sample's key
+			int hi = highest;
+			while (lo < hi) {
+				int mid = (int) (((long) lo + hi) >>> 1);
+				long rank = 0;
+				for (StreamIndex index : indices)
+					rank += index.rank(mid);
+				if (rank > target)
+					hi = mid;
+				else
+					lo = mid + 1;
+			}
+			out[sample] = lo;
+		}
+	}
+
+	/**
+	 * Returns the index of the first of the first length keys of a sorted array
+	 * that is larger than key, without counting comparisons
+	 */
+	protected static int upperBound(int[] keys, int length, int key) {
+		int lo = 0;
+		int hi = length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (keys[mid] <= key)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Returns the number of keys
+	 *
+	 * @return the number of keys
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the key comparisons of every insert so far
+	 *
+	 * @return the comparisons
+	 */
+	public long getComparisons() {
+		return comparisons;
+	}
+
+	/**
+	 * Returns the keys and pointers moved by every insert so far, including the
+	 * moves of merges
+	 *
+	 * @return the moves
+	 */
+	public long getMoves() {
+		return moves;
+	}
+
+	/**
+	 * Returns the keys moved by background merges so far, only an LSM tree merges
+	 *
+	 * @return the merge moves
+	 */
+	public long getMergeMoves() {
+		return 0;
+	}
+
+	/**
+	 * A skip list whose towers grow one level with probability 1/2. Every link
+	 * also stores how many keys it skips, so ranks are summed on the way down.
+	 */
+	private static class SkipList extends StreamIndex {
+		private static final int MAXLEVEL = 32;
+		private final Node head;
+		private final Random random;
+		private int levels;
+
+		private static class Node {
+			private final int key;
+			private final Node[] next;
+			private final int[] width; // keys from this node to next, counting next
+
+			public Node(int key, int height) {
+				this.key = key;
+				next = new Node[height];
+				width = new int[height];
+			}
+		}
+
+		public SkipList() {
+			head = new Node(Integer.MIN_VALUE, MAXLEVEL);
+			random = new Random();
+			levels = 1;
+		}
+
+		@Override
+		protected void add(int key) {
+			Node[] update = new Node[MAXLEVEL];
+			int[] rankAt = new int[MAXLEVEL]; // the number of keys up to update[level]
+			Node curr = head;
+			int rank = 0;
+			for (int level = levels - 1; level >= 0; level--) {
+				while (curr.next[level] != null) {
+					comparisons++;
+					if (curr.next[level].key > key)
+						break;
+					rank += curr.width[level];
+					curr = curr.next[level];
+				}
+				update[level] = curr;
+				rankAt[level] = rank;
+			}
+			int height = 1;
+			while (height < MAXLEVEL && random.nextBoolean())
+				height++;
+			for (; levels < height; levels++) {
+				update[levels] = head;
+				rankAt[levels] = 0;
+			}
+			Node node = new Node(key, height);
+			// the new key is number rank + 1, the widths of links past the end are
+			// never read
+			for (int level = 0; level < height; level++) {
+				node.next[level] = update[level].next[level];
+				node.width[level] = rankAt[level] + update[level].width[level] - rank;
+				update[level].next[level] = node;
+				update[level].width[level] = rank + 1 - rankAt[level];
+				moves += 2;
+			}
+			for (int level = height; level < levels; level++)
+				update[level].width[level]++;
+			size++;
+		}
+
+		@Override
+		public int rank(int key) {
+			Node curr = head;
+			int rank = 0;
+			for (int level = levels - 1; level >= 0; level--) {
+				while (curr.next[level] != null && curr.next[level].key <= key) {
+					rank += curr.width[level];
+					curr = curr.next[level];
+				}
+			}
+			return rank;
+		}
+	}
+
+	/**
+	 * A B-tree that splits full nodes on the way down, every node but the root
+	 * holds between fanout / 2 - 1 and fanout - 1 keys. Every node also knows how
+	 * many keys its subtree holds, so ranks are summed on the way down.
+	 */
+	private static class BTree extends StreamIndex {
+		private final int maxKeys;
+		private Node root;
+
+		private static class Node {
+			private final int[] keys;
+			private final Node[] children; // null for a leaf
+			private int count;
+			private int total; // keys in the subtree
+
+			public Node(int maxKeys, boolean leaf) {
+				keys = new int[maxKeys];
+				children = leaf ? null : new Node[maxKeys + 1];
+			}
+		}
+
+		public BTree(int fanout) {
+			// an odd number of keys splits evenly around the middle key
+			maxKeys = 2 * Math.max(2, fanout / 2) - 1;
+			root = new Node(maxKeys, true);
+		}
+
+		@Override
+		protected void add(int key) {
+			if (root.count == maxKeys) {
+				Node newRoot = new Node(maxKeys, false);
+				newRoot.children[0] = root;
+				newRoot.total = root.total;
+				split(newRoot, 0);
+				root = newRoot;
+			}
+			Node node = root;
+			while (true) {
+				// the key ends up somewhere below every node on the way down
+				node.total++;
+				int i = upperBound(node, key);
+				if (node.children == null) {
+					System.arraycopy(node.keys, i, node.keys, i + 1, node.count - i);
+					moves += node.count - i + 1;
+					node.keys[i] = key;
+					node.count++;
+					size++;
+					return;
+				}
+				if (node.children[i].count == maxKeys) {
+					split(node, i);
+					comparisons++;
+					if (key >= node.keys[i])
+						i++;
+				}
+				node = node.children[i];
+			}
+		}
+
+		/**
+		 * Returns the index of the first key in a node larger than key
+		 */
+		private int upperBound(Node node, int key) {
+			int lo = 0;
+			int hi = node.count;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				comparisons++;
+				if (node.keys[mid] <= key)
+					lo = mid + 1;
+				else
+					hi = mid;
+			}
+			return lo;
+		}
+
+		/**
+		 * Splits the full child at index i of a node, moving its middle key up
+		 */
+		private void split(Node parent, int i) {
+			Node full = parent.children[i];
+			int half = maxKeys / 2;
+			Node right = new Node(maxKeys, full.children == null);
+			right.count = half;
+			System.arraycopy(full.keys, half + 1, right.keys, 0, half);
+			if (full.children != null) {
+				System.arraycopy(full.children, half + 1, right.children, 0, half + 1);
+				Arrays.fill(full.children, half + 1, full.children.length, null);
+			}
+			full.count = half;
+			System.arraycopy(parent.keys, i, parent.keys, i + 1, parent.count - i);
+			System.arraycopy(parent.children, i + 1, parent.children, i + 2, parent.count - i);
+			parent.keys[i] = full.keys[half];
+			parent.children[i + 1] = right;
+			parent.count++;
+			full.total = subtreeTotal(full);
+			right.total = subtreeTotal(right);
+			moves += 2L * half + 2 * (parent.count - i);
+		}
+
+		/**
+		 * Adds up the keys of a node and the totals of its children
+		 */
+		private static int subtreeTotal(Node node) {
+			int total = node.count;
+			if (node.children != null)
+				for (int c = 0; c <= node.count; c++)
+					total += node.children[c].total;
+			return total;
+		}
+
+		@Override
+		public int rank(int key) {
+			int rank = 0;
+			Node node = root;
+			while (true) {
+				int i = upperBound(node.keys, node.count, key);
+				rank += i;
+				if (node.children == null)
+					return rank;
+				for (int c = 0; c < i; c++)
+					rank += node.children[c].total;
+				node = node.children[i];
+			}
+		}
+	}
+
+	/**
+	 * A leveled log-structured merge tree. Keys are inserted into a small sorted
+	 * memtable, a full memtable is merged into the first level and a level that
+	 * outgrows its capacity, ratio times the one before it, is merged into the
+	 * next level. Every level is one sorted run, so a rank is a binary search of
+	 * the memtable and every level.
+	 */
+	private static class Lsm extends StreamIndex {
+		private final int ratio;
+		private final int[] memtable;
+		private final List<int[]> levels;
+		private int buffered;
+		private long mergeMoves;
+
+		public Lsm(int ratio, int memtable) {
+			this.ratio = Math.max(2, ratio);
+			this.memtable = new int[Math.max(1, memtable)];
+			levels = new ArrayList<>();
+		}
+
+		@Override
+		protected void add(int key) {
+			int lo = 0;
+			int hi = buffered;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				comparisons++;
+				if (memtable[mid] <= key)
+					lo = mid + 1;
+				else
+					hi = mid;
+			}
+			System.arraycopy(memtable, lo, memtable, lo + 1, buffered - lo);
+			moves += buffered - lo + 1;
+			memtable[lo] = key;
+			buffered++;
+			size++;
+			if (buffered == memtable.length) {
+				int[] run = Arrays.copyOf(memtable, buffered);
+				buffered = 0;
+				long capacity = memtable.length;
+				for (int level = 0; run != null; level++) {
+					capacity *= ratio;
+					if (level == levels.size())
+						levels.add(new int[0]);
+					int[] merged = merge(levels.get(level), run);
+					if (merged.length > capacity) {
+						// push the whole level down, leaving it empty
+						levels.set(level, new int[0]);
+						run = merged;
+					} else {
+						levels.set(level, merged);
+						run = null;
+					}
+				}
+			}
+		}
+
+		private int[] merge(int[] a, int[] b) {
+			int[] out = new int[a.length + b.length];
+			int i = 0;
+			int j = 0;
+			int k = 0;
+			while (i < a.length && j < b.length) {
+				comparisons++;
+				out[k++] = a[i] <= b[j] ? a[i++] : b[j++];
+			}
+			while (i < a.length)
+				out[k++] = a[i++];
+			while (j < b.length)
+				out[k++] = b[j++];
+			moves += out.length;
+			mergeMoves += out.length;
+			return out;
+		}
+
+		@Override
+		public long getMergeMoves() {
+			return mergeMoves;
+		}
+
+		@Override
+		public int rank(int key) {
+			int rank = upperBound(memtable, buffered, key);
+			for (int[] level : levels)
+				rank += upperBound(level, level.length, key);
+			return rank;
+		}
+	}
+}
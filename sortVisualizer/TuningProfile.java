@@ -0,0 +1,137 @@
+package sortVisualizer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The hybrid parameters of the sorts that depend on the machine, as found by
+ * the AutoTuner. The defaults keep the sorts as they always were: no insertion
+ * sort cutoffs, halving ShellSort gaps and a single random pivot.
+ *
+ * @param quickCutoff the largest QuickSort subarray that is insertion sorted
+ *                    instead of partitioned, 0 for none
+ * @param mergeCutoff the size of the runs MergeSort insertion sorts before it
+ *                    merges, 0 or 1 for single rectangles
+ * @param shellGaps   the ShellSort gap sequence
+ * @param pivotSample the number of random rectangles QuickSort takes the median
+ *                    of as its pivot, odd
+ *
+ * @author Jacob Anderson
+ * @version 02/20/2024
+ */
+public record TuningProfile(int quickCutoff, int mergeCutoff, GapSequence shellGaps, int pivotSample) {
+	public static final TuningProfile DEFAULTS = new TuningProfile(0, 0, GapSequence.HALVING, 1);
+	/** where the profile is saved and loaded from at startup */
+	public static final Path DEFAULTPATH = Path.of(System.getProperty("user.home"), ".sortVisualizer.properties");
+
+	/**
+	 * ShellSort gap sequences
+	 */
+	public enum GapSequence {
+		/** n/2, n/4, ..., 1 (Shell) */
+		HALVING,
+		/** 1, 4, 10, 23, 57, 132, 301, 701, then * 2.25 (Ciura) */
+		CIURA,
+		/** 1, 8, 23, 77, 281, ... 4^k + 3 * 2^(k-1) + 1 (Sedgewick) */
+		SEDGEWICK,
+		/** ceil((9^k - 4^k) / (5 * 4^(k-1))): 1, 4, 9, 20, 46, ... (Tokuda) */
+		TOKUDA;
+
+		/**
+		 * Returns the gaps for a list of n elements, largest first and ending in 1
+		 *
+		 * @param n the size of the list
+		 * @return the gaps
+		 */
+		public int[] gaps(int n) {
+			List<Integer> gaps = new ArrayList<>();
+			switch (this) {
+			case HALVING:
+				for (int gap = n / 2; gap > 0; gap /= 2)
+					gaps.add(0, gap);
+				break;
+			case CIURA:
+				int[] ciura = { 1, 4, 10, 23, 57, 132, 301, 701 };
+				double gap = 1;
+				for (int i = 0; gap < n; i++) {
+					gap = i < ciura.length ? ciura[i] : Math.floor(gap * 2.25);
+					if (gap < n || i == 0)
+						gaps.add((int) gap);
+				}
+				break;
+			case SEDGEWICK:
+				gaps.add(1);
+				for (long k = 1, next = 8; next < n; k++, next = (1L << 2 * k) + 3 * (1L << k - 1) + 1)
+					gaps.add((int) next);
+				break;
+			case TOKUDA:
+				for (int k = 1;; k++) {
+					long next = (long) Math.ceil((Math.pow(9, k) - Math.pow(4, k)) / (5 * Math.pow(4, k - 1)));
+					if (next >= n && k > 1)
+						break;
+					gaps.add((int) next);
+				}
+				break;
+			}
+			if (gaps.isEmpty())
+				gaps.add(1);
+			int[] out = new int[gaps.size()];
+			for (int i = 0; i < out.length; i++)
+				out[i] = gaps.get(out.length - 1 - i);
+			return out;
+		}
+	}
+
+	public TuningProfile {
+		if (quickCutoff < 0 || mergeCutoff < 0 || pivotSample < 1 || pivotSample % 2 == 0 || shellGaps == null)
+			throw new IllegalArgumentException("invalid tuning profile");
+	}
+
+	/**
+	 * Loads a profile saved by save, missing values keep their defaults
+	 *
+	 * @param file the profile
+	 * @return the profile, or DEFAULTS if the file does not exist or is invalid
+	 * @throws IOException if the file exists but cannot be read
+	 */
+	public static TuningProfile load(Path file) throws IOException {
+		if (!Files.exists(file))
+			return DEFAULTS;
+		Properties properties = new Properties();
+		try (Reader in = Files.newBufferedReader(file)) {
+			properties.load(in);
+		}
+		try {
+			return new TuningProfile(
+					Integer.parseInt(properties.getProperty("quickCutoff", "" + DEFAULTS.quickCutoff)),
+					Integer.parseInt(properties.getProperty("mergeCutoff", "" + DEFAULTS.mergeCutoff)),
+					GapSequence.valueOf(properties.getProperty("shellGaps", DEFAULTS.shellGaps.name())),
+					Integer.parseInt(properties.getProperty("pivotSample", "" + DEFAULTS.pivotSample)));
+		} catch (IllegalArgumentException e) {
+			return DEFAULTS;
+		}
+	}
+
+	/**
+	 * Saves this profile as a properties file
+	 *
+	 * @param file the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(Path file) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty("quickCutoff", "" + quickCutoff);
+		properties.setProperty("mergeCutoff", "" + mergeCutoff);
+		properties.setProperty("shellGaps", shellGaps.name());
+		properties.setProperty("pivotSample", "" + pivotSample);
+		try (Writer out = Files.newBufferedWriter(file)) {
+			properties.store(out, "Sort Visualizer tuning profile");
+		}
+	}
+}